@@ -0,0 +1,59 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of turning the openRoom options into a CallConfig, with every option set
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CallConfigBenchmark {
+
+    private static final String OPTIONS = "{"
+            + "\"primaryColor\":\"#3f51b5\",\"secondaryColor\":\"#ff4081\","
+            + "\"i18nConnectionError\":\"Could not join\",\"i18nDisconnectedWithError\":\"Disconnected\","
+            + "\"i18nAccept\":\"OK\",\"handleErrorInApp\":true,\"hangUpInApp\":true,"
+            + "\"sideViewPoolSize\":4,\"eventBatchMode\":\"window\",\"eventBatchWindowMs\":32,"
+            + "\"eventQueueCapacity\":512,\"eventOverflowPolicy\":\"collapse\","
+            + "\"foregroundService\":true,\"embedded\":true,"
+            + "\"videoFrame\":{\"x\":0,\"y\":64,\"width\":360,\"height\":640},"
+            + "\"captureQualityLadder\":[{\"minParticipants\":0,\"width\":1280,\"height\":720,\"fps\":30},"
+            + "{\"minParticipants\":3,\"width\":640,\"height\":480,\"fps\":24},"
+            + "{\"minParticipants\":6,\"width\":320,\"height\":240,\"fps\":15}],"
+            + "\"qualityProfile\":\"balanced\",\"preferredVideoCodecs\":[\"H264\",\"VP8\"],"
+            + "\"preferredAudioCodecs\":[\"opus\"],\"simulcast\":true,\"simulcastMaxLayers\":2,"
+            + "\"statsIntervalMs\":2000,\"logLevel\":\"info\",\"logBufferSize\":200"
+            + "}";
+
+    private JSONObject options;
+
+    @Setup
+    public void setUp() throws JSONException {
+        options = new JSONObject(OPTIONS);
+    }
+
+    @Benchmark
+    public CallConfig parse() {
+        CallConfig config = new CallConfig();
+        config.parse(options);
+        return config;
+    }
+
+    @Benchmark
+    public CallConfig parseFromString() throws JSONException {
+        CallConfig config = new CallConfig();
+        config.parse(new JSONObject(OPTIONS));
+        return config;
+    }
+}
@@ -0,0 +1,70 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of the event pipeline as seen by the SDK callback that publishes an event, and of
+ * delivering a batch to the observers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CallEventBusBenchmark {
+
+    @Param({ "1", "4" })
+    public int observerCount;
+
+    @Param({ "DROP_OLDEST", "COLLAPSE" })
+    public CallEventDispatcher.OverflowPolicy overflowPolicy;
+
+    private CallEventBus eventBus;
+    private JSONObject data;
+    private List<CallEventRecord> batch;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) throws JSONException {
+        eventBus = new CallEventBus(128, CallConfig.EVENT_QUEUE_CAPACITY_DEF, overflowPolicy);
+        for (int i = 0; i < observerCount; i++) {
+            eventBus.addObserver(new CallEventObserver() {
+                @Override
+                public void onEvent(String event, JSONObject data) {
+                    blackhole.consume(data);
+                }
+            });
+        }
+        data = new JSONObject();
+        data.put("participantSid", "PA00000000000000000000000000000000");
+        data.put("identity", "participant");
+
+        CallEventHistory history = new CallEventHistory(64);
+        batch = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            batch.add(history.append(CallEvent.STATS, data));
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        eventBus.publish(CallEvent.PARTICIPANT_CONNECTED, data);
+    }
+
+    @Benchmark
+    public void deliverBatch() {
+        // Sequences are behind the observers after the first call, so this measures the filtering
+        eventBus.deliver(batch);
+    }
+}
@@ -0,0 +1,121 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of one room event on the thread that receives the SDK callbacks, the UI thread in the
+ * plugin: roster update, layout decision and event publication, against a simulated room kept
+ * around the given size. Run with -prof gc for the allocations per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoomChurnBenchmark {
+
+    @Param({ "4", "16", "50", "100" })
+    public int participantCount;
+
+    private SimulatedRoomEngine engine;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        CallEventBus eventBus = new CallEventBus(128, CallConfig.EVENT_QUEUE_CAPACITY_DEF,
+                CallEventDispatcher.OverflowPolicy.DROP_OLDEST);
+        eventBus.addObserver(new CallEventObserver() {
+            @Override
+            public void onEvent(String event, JSONObject data) {
+                blackhole.consume(data);
+            }
+        });
+        CallRoomSession session = new CallRoomSession(new BusHost(eventBus, blackhole), new NoOpLayout(blackhole));
+
+        // Room hovers around participantCount: joins stop at the cap, leaves keep it churning
+        engine = new SimulatedRoomEngine(42, participantCount, 2, 2, 4, 0.05);
+        engine.setListener(session);
+        engine.connect(participantCount);
+    }
+
+    @Benchmark
+    public double nextEvent() {
+        return engine.step();
+    }
+
+    private static class BusHost implements CallRoomSession.Host {
+        private final CallEventBus eventBus;
+        private final Blackhole blackhole;
+
+        BusHost(CallEventBus eventBus, Blackhole blackhole) {
+            this.eventBus = eventBus;
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void publishEvent(CallEvent event, JSONObject data) {
+            eventBus.publish(event, data);
+        }
+
+        @Override
+        public void onParticipantCountChanged(int participantCount) {
+            blackhole.consume(participantCount);
+        }
+
+        @Override
+        public void onVideoTrackEnabledChanged(String trackSid, boolean enabled) {
+            blackhole.consume(enabled);
+        }
+
+        @Override
+        public void onAudioPlaybackChanged(String trackSid, boolean enabled) {
+            blackhole.consume(enabled);
+        }
+    }
+
+    private static class NoOpLayout implements VideoLayoutModel.Operations {
+        private final Blackhole blackhole;
+
+        NoOpLayout(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void attachPrimary(String trackSid) {
+            blackhole.consume(trackSid);
+        }
+
+        @Override
+        public void detachPrimary(String trackSid) {
+            blackhole.consume(trackSid);
+        }
+
+        @Override
+        public void attachSide(String trackSid) {
+            blackhole.consume(trackSid);
+        }
+
+        @Override
+        public void detachSide(String trackSid) {
+            blackhole.consume(trackSid);
+        }
+
+        @Override
+        public void swapPrimary(String sideTrackSid, String primaryTrackSid) {
+            blackhole.consume(sideTrackSid);
+        }
+
+        @Override
+        public void setSideRendering(String trackSid, boolean rendering) {
+            blackhole.consume(trackSid);
+        }
+    }
+}
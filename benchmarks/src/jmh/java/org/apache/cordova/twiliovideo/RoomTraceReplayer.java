@@ -0,0 +1,179 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Feeds a trace recorded with config.recordRoomTrace into a CallRoomSession, with the layout
+ * model and event bus behind it, and reports the latency and allocated bytes of every callback,
+ * summarized per callback type:
+ *
+ *     java RoomTraceReplayer twilio-video-room.trace [--original-speed] [--repeat N]
+ *
+ * Without --original-speed the records are replayed back to back. Allocations are measured with
+ * the HotSpot per-thread counter and are reported as -1 on other VMs.
+ */
+public class RoomTraceReplayer {
+
+    private static class Stats {
+        private final List<Long> latenciesNanos = new ArrayList<>();
+        private long allocatedBytes;
+
+        void add(long latencyNanos, long bytes) {
+            latenciesNanos.add(latencyNanos);
+            allocatedBytes += bytes;
+        }
+
+        String summary() {
+            long[] sorted = new long[latenciesNanos.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = latenciesNanos.get(i);
+            }
+            Arrays.sort(sorted);
+            return String.format("%7d  p50 %8d ns  p99 %8d ns  max %9d ns  %8d B/event",
+                    sorted.length,
+                    percentile(sorted, 0.50),
+                    percentile(sorted, 0.99),
+                    sorted[sorted.length - 1],
+                    allocatedBytes < 0 ? -1 : allocatedBytes / sorted.length);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: RoomTraceReplayer <trace> [--original-speed] [--repeat N]");
+            System.exit(2);
+        }
+        boolean originalSpeed = false;
+        int repeat = 1;
+        for (int i = 1; i < args.length; i++) {
+            if ("--original-speed".equals(args[i])) {
+                originalSpeed = true;
+            } else if ("--repeat".equals(args[i]) && i + 1 < args.length) {
+                repeat = Integer.parseInt(args[++i]);
+            }
+        }
+
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        for (int run = 0; run < repeat; run++) {
+            // Only the last run is reported, the earlier ones warm the JIT up
+            stats.clear();
+            replay(args[0], originalSpeed, stats);
+        }
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            System.out.println(String.format("%-26s %s", entry.getKey(), entry.getValue().summary()));
+        }
+    }
+
+    private static void replay(String path, boolean originalSpeed, Map<String, Stats> stats)
+            throws IOException, InterruptedException {
+        CallEventBus eventBus = new CallEventBus(128, CallConfig.EVENT_QUEUE_CAPACITY_DEF,
+                CallEventDispatcher.OverflowPolicy.DROP_OLDEST);
+        long allocationOverhead = allocationOverhead();
+        long startNanos = System.nanoTime();
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(path))) {
+            RoomTraceReader reader = new RoomTraceReader(stream);
+            // Same policies as the recorded call
+            CallRoomSession session = newSession(eventBus, reader.getCallConfig());
+            while (reader.next()) {
+                if (originalSpeed) {
+                    long waitNanos = reader.getTimestampMicros() * 1000 - (System.nanoTime() - startNanos);
+                    if (waitNanos > 0) {
+                        Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+                    }
+                }
+                long allocatedBefore = allocatedBytes();
+                long before = System.nanoTime();
+                reader.dispatch(session);
+                long latency = System.nanoTime() - before;
+                long allocated = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore - allocationOverhead;
+
+                Stats eventStats = stats.get(reader.getEventName());
+                if (eventStats == null) {
+                    eventStats = new Stats();
+                    stats.put(reader.getEventName(), eventStats);
+                }
+                eventStats.add(latency, allocated);
+            }
+        }
+    }
+
+    private static CallRoomSession newSession(final CallEventBus eventBus, CallConfig config) {
+        return new CallRoomSession(new CallRoomSession.Host() {
+            @Override
+            public void publishEvent(CallEvent event, JSONObject data) {
+                eventBus.publish(event, data);
+            }
+
+            @Override
+            public void onParticipantCountChanged(int participantCount) {
+            }
+
+            @Override
+            public void onVideoTrackEnabledChanged(String trackSid, boolean enabled) {
+            }
+
+            @Override
+            public void onAudioPlaybackChanged(String trackSid, boolean enabled) {
+            }
+        }, new VideoLayoutModel.Operations() {
+            @Override
+            public void attachPrimary(String trackSid) {
+            }
+
+            @Override
+            public void detachPrimary(String trackSid) {
+            }
+
+            @Override
+            public void attachSide(String trackSid) {
+            }
+
+            @Override
+            public void detachSide(String trackSid) {
+            }
+
+            @Override
+            public void swapPrimary(String sideTrackSid, String primaryTrackSid) {
+            }
+
+            @Override
+            public void setSideRendering(String trackSid, boolean rendering) {
+            }
+        }, config);
+    }
+
+    /*
+     * Bytes the counter itself allocates between two reads
+     */
+    private static long allocationOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            long before = allocatedBytes();
+            overhead = Math.min(overhead, allocatedBytes() - before);
+        }
+        return Math.max(overhead, 0);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,151 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Room engine without a backend: participants join, leave and toggle their camera at the given
+ * rates, as independent Poisson processes on a virtual clock. Every participant publishes a
+ * microphone and a camera track, or a screen track for a share of them. The sequence is fully
+ * determined by the seed.
+ *
+ * Participant descriptors and SIDs are preallocated and recycled once a participant has left,
+ * so stepping the engine does not allocate by itself.
+ */
+public class SimulatedRoomEngine implements CallRoomEngine {
+
+    private static class Participant {
+        final String sid;
+        final String identity;
+        final String audioTrackSid;
+        final String videoTrackSid;
+        final String videoTrackName;
+        boolean videoEnabled;
+
+        Participant(int id, boolean screen) {
+            sid = String.format("PA%032x", id);
+            identity = "participant-" + id;
+            audioTrackSid = String.format("MTa%031x", id);
+            videoTrackSid = String.format("MTv%031x", id);
+            videoTrackName = screen ? "screen" : "camera";
+        }
+    }
+
+    private final Random random;
+    private final int maxParticipants;
+    private final double joinsPerSecond;
+    private final double leavesPerSecond;
+    private final double togglesPerSecond;
+
+    private final List<Participant> present = new ArrayList<>();
+    private final List<Participant> absent = new ArrayList<>();
+    private CallRoomListener listener;
+    private double elapsedMs;
+
+    /*
+     * Leave and toggle rates are for the whole room, not per participant. screenRatio is the
+     * share of participants publishing a screen track instead of a camera.
+     */
+    public SimulatedRoomEngine(long seed,
+                               int maxParticipants,
+                               double joinsPerSecond,
+                               double leavesPerSecond,
+                               double togglesPerSecond,
+                               double screenRatio) {
+        this.random = new Random(seed);
+        this.maxParticipants = maxParticipants;
+        this.joinsPerSecond = joinsPerSecond;
+        this.leavesPerSecond = leavesPerSecond;
+        this.togglesPerSecond = togglesPerSecond;
+        for (int i = 0; i < maxParticipants; i++) {
+            absent.add(new Participant(i, random.nextDouble() < screenRatio));
+        }
+    }
+
+    @Override
+    public void setListener(CallRoomListener listener) {
+        this.listener = listener;
+    }
+
+    /*
+     * Reports the participants already in the room, then the connection
+     */
+    public void connect(int initialParticipants) {
+        int count = Math.min(initialParticipants, maxParticipants);
+        for (int i = 0; i < count; i++) {
+            join();
+        }
+        listener.onConnected();
+    }
+
+    public void disconnect() {
+        listener.onDisconnected();
+    }
+
+    /*
+     * Emits the next join, leave or toggle and returns the virtual time it happened at, in ms
+     */
+    public double step() {
+        double joinRate = present.size() < maxParticipants ? joinsPerSecond : 0;
+        double leaveRate = present.isEmpty() ? 0 : leavesPerSecond;
+        double toggleRate = present.isEmpty() ? 0 : togglesPerSecond;
+        double totalRate = joinRate + leaveRate + toggleRate;
+        if (totalRate <= 0) { return elapsedMs; }
+
+        elapsedMs += -Math.log(1 - random.nextDouble()) / totalRate * 1000;
+        double pick = random.nextDouble() * totalRate;
+        if (pick < joinRate) {
+            join();
+        } else if (pick < joinRate + leaveRate) {
+            leave();
+        } else {
+            toggle();
+        }
+        return elapsedMs;
+    }
+
+    public int getParticipantCount() {
+        return present.size();
+    }
+
+    public double getElapsedMs() {
+        return elapsedMs;
+    }
+
+    private void join() {
+        Participant participant = takeRandom(absent);
+        participant.videoEnabled = true;
+        present.add(participant);
+        listener.onParticipantConnected(participant.sid, participant.identity);
+        listener.onAudioTrackSubscribed(participant.sid, participant.audioTrackSid, "microphone");
+        listener.onVideoTrackSubscribed(participant.sid, participant.videoTrackSid, participant.videoTrackName, true);
+    }
+
+    private void leave() {
+        Participant participant = takeRandom(present);
+        absent.add(participant);
+        // Same order as the SDK: tracks are unsubscribed before the participant disconnects
+        listener.onVideoTrackUnsubscribed(participant.sid, participant.videoTrackSid);
+        listener.onAudioTrackUnsubscribed(participant.sid, participant.audioTrackSid);
+        listener.onParticipantDisconnected(participant.sid);
+    }
+
+    private void toggle() {
+        Participant participant = present.get(random.nextInt(present.size()));
+        participant.videoEnabled = !participant.videoEnabled;
+        listener.onVideoTrackEnabledChanged(participant.sid, participant.videoTrackSid, participant.videoEnabled);
+    }
+
+    /*
+     * Constant time removal, the order of the lists does not matter
+     */
+    private Participant takeRandom(List<Participant> participants) {
+        int index = random.nextInt(participants.size());
+        Participant participant = participants.get(index);
+        int last = participants.size() - 1;
+        participants.set(index, participants.get(last));
+        participants.remove(last);
+        return participant;
+    }
+}
@@ -0,0 +1,82 @@
+package org.apache.cordova.twiliovideo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of the layout decisions against the number of remote video tracks: every track joins,
+ * then the primary one leaves until the room is empty, which walks the tracks on each promotion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VideoLayoutBenchmark {
+
+    @Param({ "2", "8", "32", "128" })
+    public int trackCount;
+
+    private String[] trackSids;
+    private VideoLayoutModel.Operations operations;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        trackSids = new String[trackCount];
+        for (int i = 0; i < trackCount; i++) {
+            trackSids[i] = String.format("MT%032d", i);
+        }
+        operations = new VideoLayoutModel.Operations() {
+            @Override
+            public void attachPrimary(String trackSid) {
+                blackhole.consume(trackSid);
+            }
+
+            @Override
+            public void detachPrimary(String trackSid) {
+                blackhole.consume(trackSid);
+            }
+
+            @Override
+            public void attachSide(String trackSid) {
+                blackhole.consume(trackSid);
+            }
+
+            @Override
+            public void detachSide(String trackSid) {
+                blackhole.consume(trackSid);
+            }
+
+            @Override
+            public void swapPrimary(String sideTrackSid, String primaryTrackSid) {
+                blackhole.consume(sideTrackSid);
+            }
+
+            @Override
+            public void setSideRendering(String trackSid, boolean rendering) {
+                blackhole.consume(trackSid);
+            }
+        };
+    }
+
+    @Benchmark
+    public VideoLayoutModel joinAndLeave() {
+        VideoLayoutModel model = new VideoLayoutModel();
+        for (int i = 0; i < trackSids.length; i++) {
+            // One screen share in the middle of the room demotes the camera on the primary view
+            model.onTrackSubscribed(trackSids[i], i == trackSids.length / 2, operations);
+        }
+        String primaryTrackSid;
+        while ((primaryTrackSid = model.getPrimaryTrackSid()) != null) {
+            model.onTrackUnsubscribed(primaryTrackSid, operations);
+        }
+        return model;
+    }
+}
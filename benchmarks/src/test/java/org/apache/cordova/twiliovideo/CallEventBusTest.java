@@ -0,0 +1,111 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+ * Replay and deduplication contract of CallEventBus.addObserver(observer, sinceSequence)
+ */
+public class CallEventBusTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private CallEventBus eventBus;
+
+    @Before
+    public void setUp() {
+        eventBus = new CallEventBus(8, 64, CallEventDispatcher.OverflowPolicy.DROP_OLDEST);
+    }
+
+    @Test
+    public void replaysMissedEventsThenDeliversLiveOnesOnce() throws InterruptedException {
+        publish(CallEvent.CONNECTED, CallEvent.PARTICIPANT_CONNECTED, CallEvent.VIDEO_TRACK_ADDED);
+        RecordingObserver observer = new RecordingObserver();
+
+        eventBus.addObserver(observer, 1);
+        publish(CallEvent.VIDEO_TRACK_REMOVED);
+
+        observer.awaitEvents(3);
+        assertEquals(names(CallEvent.PARTICIPANT_CONNECTED, CallEvent.VIDEO_TRACK_ADDED,
+                CallEvent.VIDEO_TRACK_REMOVED), observer.events);
+    }
+
+    @Test
+    public void sequenceAheadOfHistoryDoesNotHoldBackLiveEvents() throws InterruptedException {
+        publish(CallEvent.CONNECTED);
+        RecordingObserver observer = new RecordingObserver();
+
+        // Last sequence seen by JS before the process, and the counter, restarted
+        eventBus.addObserver(observer, 1000);
+        publish(CallEvent.PARTICIPANT_CONNECTED, CallEvent.DISCONNECTED);
+
+        observer.awaitEvents(2);
+        assertEquals(names(CallEvent.PARTICIPANT_CONNECTED, CallEvent.DISCONNECTED), observer.events);
+    }
+
+    @Test
+    public void upToDateObserverOnlyGetsLiveEvents() throws InterruptedException {
+        publish(CallEvent.CONNECTED, CallEvent.PARTICIPANT_CONNECTED);
+        RecordingObserver observer = new RecordingObserver();
+
+        eventBus.addObserver(observer, eventBus.getLastSequence());
+        publish(CallEvent.DISCONNECTED);
+
+        observer.awaitEvents(1);
+        assertEquals(names(CallEvent.DISCONNECTED), observer.events);
+    }
+
+    @Test
+    public void replayStartsAtTheOldestEventStillInHistory() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            publish(CallEvent.STATS);
+        }
+        RecordingObserver observer = new RecordingObserver();
+
+        eventBus.addObserver(observer, 0);
+
+        observer.awaitEvents(8);
+        assertEquals(8, observer.events.size());
+    }
+
+    private void publish(CallEvent... events) {
+        for (CallEvent event : events) {
+            eventBus.publish(event, new JSONObject());
+        }
+    }
+
+    private static List<String> names(CallEvent... events) {
+        List<String> names = new ArrayList<>();
+        for (CallEvent event : events) {
+            names.add(event.name());
+        }
+        return names;
+    }
+
+    private static class RecordingObserver implements CallEventObserver {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public synchronized void onEvent(String event, JSONObject data) {
+            events.add(event);
+            notifyAll();
+        }
+
+        /*
+         * Waits for the expected count, then a little longer so that duplicates would show up
+         */
+        synchronized void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                wait(deadline - System.currentTimeMillis());
+            }
+            wait(100);
+        }
+    }
+}
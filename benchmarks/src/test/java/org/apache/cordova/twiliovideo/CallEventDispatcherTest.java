@@ -0,0 +1,95 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Overflow policies of CallEventDispatcher. The sink holds the first event so the following ones
+ * pile up in the queue.
+ */
+public class CallEventDispatcherTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private final CountDownLatch firstDelivered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<Long> delivered = new ArrayList<>();
+    private long sequence;
+
+    @Test
+    public void collapseNeverMergesParticipantEvents() throws InterruptedException {
+        CallEventDispatcher dispatcher = newBlockedDispatcher(2, CallEventDispatcher.OverflowPolicy.COLLAPSE);
+
+        offer(dispatcher, CallEvent.PARTICIPANT_CONNECTED);
+        offer(dispatcher, CallEvent.PARTICIPANT_CONNECTED);
+        offer(dispatcher, CallEvent.PARTICIPANT_CONNECTED);
+        offer(dispatcher, CallEvent.STATS);
+        offer(dispatcher, CallEvent.STATS);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 6L), awaitDelivered(dispatcher, 5));
+        assertEquals(1, dispatcher.getCollapsedCount());
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void dropOldestSkipsTrackEvents() throws InterruptedException {
+        CallEventDispatcher dispatcher = newBlockedDispatcher(1, CallEventDispatcher.OverflowPolicy.DROP_OLDEST);
+
+        offer(dispatcher, CallEvent.VIDEO_TRACK_ADDED);
+        offer(dispatcher, CallEvent.STATS);
+        offer(dispatcher, CallEvent.VIDEO_TRACK_REMOVED);
+
+        assertEquals(Arrays.asList(1L, 2L, 4L), awaitDelivered(dispatcher, 3));
+        assertEquals(1, dispatcher.getDroppedCount());
+    }
+
+    /*
+     * Returns once the worker holds a first STATS event
+     */
+    private CallEventDispatcher newBlockedDispatcher(int capacity, CallEventDispatcher.OverflowPolicy policy)
+            throws InterruptedException {
+        CallEventDispatcher dispatcher = new CallEventDispatcher(capacity, policy, new CallEventDispatcher.Sink() {
+            @Override
+            public void deliver(CallEventRecord record) {
+                synchronized (delivered) {
+                    delivered.add(record.getSequence());
+                    delivered.notifyAll();
+                }
+                firstDelivered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        offer(dispatcher, CallEvent.STATS);
+        assertTrue(firstDelivered.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        return dispatcher;
+    }
+
+    private void offer(CallEventDispatcher dispatcher, CallEvent event) {
+        sequence++;
+        dispatcher.offer(new CallEventRecord(sequence, sequence, event, new JSONObject()));
+    }
+
+    private List<Long> awaitDelivered(CallEventDispatcher dispatcher, int count) throws InterruptedException {
+        release.countDown();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        synchronized (delivered) {
+            while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+                delivered.wait(deadline - System.currentTimeMillis());
+            }
+            return new ArrayList<>(delivered);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.apache.cordova.twiliovideo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.twilio.video.RemoteAudioTrackStats;
+import com.twilio.video.StatsReport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Feeds the remote audio levels of every stats sample to a SpeakerDetector, on the stats sampler
+ * thread, and reports dominant speaker changes and the tracks heard in the sample on the main
+ * thread.
+ */
+public class AudioLevelMonitor implements StatsSampler.ReportsListener {
+
+    public static final long SAMPLE_INTERVAL_MS = 500;
+
+    public interface Listener {
+        void onDominantSpeakerChanged(String audioTrackSid);
+        // Loudest first
+        void onSpeechDetected(List<String> audioTrackSids);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final SpeakerDetector speakerDetector;
+    private final Listener listener;
+
+    public AudioLevelMonitor(long minHoldMs, Listener listener) {
+        this.speakerDetector = new SpeakerDetector(minHoldMs);
+        this.listener = listener;
+    }
+
+    @Override
+    public void onStatsReports(List<StatsReport> statsReports) {
+        final String dominantTrackSid;
+        final List<String> speakingTrackSids = new ArrayList<>();
+        synchronized (speakerDetector) {
+            for (StatsReport report : statsReports) {
+                for (RemoteAudioTrackStats stats : report.getRemoteAudioTrackStats()) {
+                    speakerDetector.update(stats.trackSid, stats.audioLevel, stats.bytesReceived);
+                }
+            }
+            dominantTrackSid = speakerDetector.endSample(SystemClock.elapsedRealtime());
+            speakerDetector.collectSpeaking(speakingTrackSids);
+        }
+        if (dominantTrackSid == null && speakingTrackSids.isEmpty()) { return; }
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!speakingTrackSids.isEmpty()) {
+                    listener.onSpeechDetected(speakingTrackSids);
+                }
+                if (dominantTrackSid != null) {
+                    listener.onDominantSpeakerChanged(dominantTrackSid);
+                }
+            }
+        });
+    }
+
+    public void reset() {
+        synchronized (speakerDetector) {
+            speakerDetector.reset();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Keeps playback enabled for at most K remote audio tracks, the most recently heard ones. A muted
+ * track that is heard takes the slot of the playing track that has been silent the longest, but
+ * only once that track has been silent for the hold time, so two people talking over each other
+ * do not keep swapping slots. When a playing track goes away the most recently heard muted one
+ * takes its slot.
+ *
+ * A limit of 0 or less keeps every track playing. Not thread safe.
+ */
+public class AudioPlaybackPolicy {
+
+    public interface Listener {
+        void onPlaybackChanged(String audioTrackSid, boolean enabled);
+    }
+
+    private static final long NEVER_HEARD = Long.MIN_VALUE;
+
+    private final int maxPlaying;
+    private final long holdMs;
+    // Track SID -> when it was last heard, in subscription order
+    private final Map<String, Long> lastHeard = new LinkedHashMap<>();
+    private final Set<String> playing = new LinkedHashSet<>();
+
+    public AudioPlaybackPolicy(int maxPlaying, long holdMs) {
+        this.maxPlaying = maxPlaying;
+        this.holdMs = holdMs;
+    }
+
+    /*
+     * Subscribed tracks play by default, the listener is only told when the track starts muted
+     */
+    public void add(String trackSid, Listener listener) {
+        if (lastHeard.containsKey(trackSid)) { return; }
+        lastHeard.put(trackSid, NEVER_HEARD);
+        if (maxPlaying <= 0 || playing.size() < maxPlaying) {
+            playing.add(trackSid);
+        } else {
+            listener.onPlaybackChanged(trackSid, false);
+        }
+    }
+
+    public void remove(String trackSid, Listener listener) {
+        if (lastHeard.remove(trackSid) == null) { return; }
+        if (!playing.remove(trackSid) || maxPlaying <= 0) { return; }
+        String unmutedSid = findMostRecentMuted();
+        if (unmutedSid != null) {
+            playing.add(unmutedSid);
+            listener.onPlaybackChanged(unmutedSid, true);
+        }
+    }
+
+    /*
+     * Tracks heard in one sample, loudest first
+     */
+    public void onHeard(List<String> trackSids, long nowMs, Listener listener) {
+        if (maxPlaying <= 0) { return; }
+        for (String trackSid : trackSids) {
+            if (lastHeard.containsKey(trackSid)) {
+                lastHeard.put(trackSid, nowMs);
+            }
+        }
+        for (String trackSid : trackSids) {
+            if (playing.contains(trackSid) || !lastHeard.containsKey(trackSid)) { continue; }
+            if (playing.size() >= maxPlaying) {
+                String mutedSid = findLeastRecentPlaying();
+                // Everyone playing has been heard within the hold time, the louder candidates
+                // before this one could not get a slot either
+                if (lastHeard.get(mutedSid) > nowMs - holdMs) { return; }
+                playing.remove(mutedSid);
+                listener.onPlaybackChanged(mutedSid, false);
+            }
+            playing.add(trackSid);
+            listener.onPlaybackChanged(trackSid, true);
+        }
+    }
+
+    public boolean isPlaying(String trackSid) {
+        return lastHeard.containsKey(trackSid) && (maxPlaying <= 0 || playing.contains(trackSid));
+    }
+
+    public void clear() {
+        lastHeard.clear();
+        playing.clear();
+    }
+
+    /*
+     * Walks the K playing tracks only when a muted one is heard and no slot is free
+     */
+    private String findLeastRecentPlaying() {
+        String leastSid = null;
+        long leastHeard = Long.MAX_VALUE;
+        for (String trackSid : playing) {
+            long heard = lastHeard.get(trackSid);
+            if (leastSid == null || heard < leastHeard) {
+                leastSid = trackSid;
+                leastHeard = heard;
+            }
+        }
+        return leastSid;
+    }
+
+    private String findMostRecentMuted() {
+        String mostSid = null;
+        long mostHeard = NEVER_HEARD;
+        for (Map.Entry<String, Long> entry : lastHeard.entrySet()) {
+            if (playing.contains(entry.getKey())) { continue; }
+            if (mostSid == null || entry.getValue() > mostHeard) {
+                mostSid = entry.getKey();
+                mostHeard = entry.getValue();
+            }
+        }
+        return mostSid;
+    }
+}
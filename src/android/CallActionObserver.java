@@ -6,4 +6,6 @@ package org.apache.cordova.twiliovideo;
 
 public interface CallActionObserver {
     void onDisconnect();
+
+    void onQualityProfileChanged(QualityProfile qualityProfile);
 }
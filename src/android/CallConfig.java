@@ -1,8 +1,10 @@
 package org.apache.cordova.twiliovideo;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.Serializable;
+import java.util.Locale;
 
 /**
  * Created by rpanadero on 14/9/18.
@@ -17,10 +19,45 @@ public class CallConfig implements Serializable {
     private static final String i18n_ACCEPT_PROP = "i18nAccept";
     private static final String HANDLE_ERROR_IN_APP = "handleErrorInApp";
     private static final String HANG_UP_IN_APP = "hangUpInApp";
+    private static final String SIDE_VIEW_POOL_SIZE = "sideViewPoolSize";
+    private static final String EVENT_BATCH_MODE = "eventBatchMode";
+    private static final String EVENT_BATCH_WINDOW_MS = "eventBatchWindowMs";
+    private static final String EVENT_QUEUE_CAPACITY = "eventQueueCapacity";
+    private static final String EVENT_OVERFLOW_POLICY = "eventOverflowPolicy";
+    private static final String PREPARE_IDLE_TIMEOUT_MS = "prepareIdleTimeoutMs";
+    private static final String FOREGROUND_SERVICE = "foregroundService";
+    private static final String i18n_ONGOING_CALL_PROP = "i18nOngoingCall";
+    private static final String EMBEDDED = "embedded";
+    private static final String VIDEO_FRAME = "videoFrame";
+    private static final String CAPTURE_QUALITY_LADDER = "captureQualityLadder";
+    private static final String QUALITY_PROFILE = "qualityProfile";
+    private static final String PREFERRED_VIDEO_CODECS = "preferredVideoCodecs";
+    private static final String PREFERRED_AUDIO_CODECS = "preferredAudioCodecs";
+    private static final String SIMULCAST = "simulcast";
+    private static final String SIMULCAST_MAX_LAYERS = "simulcastMaxLayers";
+    private static final String STATS_INTERVAL_MS = "statsIntervalMs";
+    private static final String LOG_LEVEL = "logLevel";
+    private static final String LOG_BUFFER_SIZE = "logBufferSize";
+    private static final String RECORD_ROOM_TRACE = "recordRoomTrace";
+    private static final String DOMINANT_SPEAKER = "dominantSpeaker";
+    private static final String DOMINANT_SPEAKER_HOLD_MS = "dominantSpeakerHoldMs";
+    private static final String LAST_N = "lastN";
+    private static final String AUDIO_PLAYBACK_LIMIT = "audioPlaybackLimit";
+    private static final String AUDIO_PLAYBACK_HOLD_MS = "audioPlaybackHoldMs";
+    private static final String THUMBNAIL_MAX_FPS = "thumbnailMaxFps";
 
     private static final String i18n_CONNECTION_ERROR_DEF_TEXT = "It was not possible to join the room";
     private static final String i18n_DISCONNECTED_WITH_ERROR_DEF_TEXT = "Disconnected";
     private static final String i18n_ACCEPT_DEF_TEXT = "Accept";
+    private static final String i18n_ONGOING_CALL_DEF_TEXT = "Ongoing video call";
+    private static final int SIDE_VIEW_POOL_SIZE_DEF = 2;
+    private static final long EVENT_BATCH_WINDOW_MS_DEF = 50;
+    public static final int EVENT_QUEUE_CAPACITY_DEF = 256;
+    private static final long PREPARE_IDLE_TIMEOUT_MS_DEF = 60000;
+    private static final int SIMULCAST_MAX_LAYERS_DEF = 3;
+    private static final long DOMINANT_SPEAKER_HOLD_MS_DEF = 2000;
+    private static final long AUDIO_PLAYBACK_HOLD_MS_DEF = 5000;
+    private static final int THUMBNAIL_MAX_FPS_DEF = 15;
 
     private String primaryColorHex;
     private String secondaryColorHex;
@@ -29,6 +66,37 @@ public class CallConfig implements Serializable {
     private String i18nAccept;
     private boolean handleErrorInApp;
     private boolean hangUpInApp;
+    private int sideViewPoolSize = SIDE_VIEW_POOL_SIZE_DEF;
+    private CallEventBatchMode eventBatchMode = CallEventBatchMode.NONE;
+    private long eventBatchWindowMs = EVENT_BATCH_WINDOW_MS_DEF;
+    private int eventQueueCapacity = EVENT_QUEUE_CAPACITY_DEF;
+    private CallEventDispatcher.OverflowPolicy eventOverflowPolicy = CallEventDispatcher.OverflowPolicy.DROP_OLDEST;
+    private long prepareIdleTimeoutMs = PREPARE_IDLE_TIMEOUT_MS_DEF;
+    private boolean foregroundService;
+    private String i18nOngoingCall = i18n_ONGOING_CALL_DEF_TEXT;
+    private boolean embedded;
+    // Initial frame of the embedded video container in CSS pixels: x, y, width, height
+    private int[] videoFrame = new int[] { 0, 0, 0, 0 };
+    private CaptureQualityLadder captureQualityLadder = CaptureQualityLadder.empty();
+    private QualityProfile qualityProfile;
+    // Codec names in preference order, null to let the plugin choose
+    private String[] preferredVideoCodecs;
+    private String[] preferredAudioCodecs;
+    private boolean simulcast;
+    private int simulcastMaxLayers = SIMULCAST_MAX_LAYERS_DEF;
+    // 0 disables the stats sampler
+    private long statsIntervalMs;
+    // Parsed by CallLog.parseLevel, null for the default level
+    private String logLevel;
+    // Number of entries kept in memory for failure dumps, 0 disables the buffer
+    private int logBufferSize;
+    private boolean recordRoomTrace;
+    private boolean dominantSpeaker;
+    private long dominantSpeakerHoldMs = DOMINANT_SPEAKER_HOLD_MS_DEF;
+    private int lastN;
+    private int audioPlaybackLimit;
+    private long audioPlaybackHoldMs = AUDIO_PLAYBACK_HOLD_MS_DEF;
+    private int thumbnailMaxFps = THUMBNAIL_MAX_FPS_DEF;
 
     public void parse(JSONObject config) {
         if (config == null) { return; }
@@ -48,6 +116,33 @@ public class CallConfig implements Serializable {
         }
         this.handleErrorInApp = config.optBoolean(HANDLE_ERROR_IN_APP, false);
         this.hangUpInApp = config.optBoolean(HANG_UP_IN_APP, false);
+        this.i18nOngoingCall = config.optString(i18n_ONGOING_CALL_PROP, i18n_ONGOING_CALL_DEF_TEXT);
+        this.foregroundService = config.optBoolean(FOREGROUND_SERVICE, false);
+        this.sideViewPoolSize = Math.max(0, config.optInt(SIDE_VIEW_POOL_SIZE, SIDE_VIEW_POOL_SIZE_DEF));
+        this.eventBatchMode = parseEventBatchMode(config.optString(EVENT_BATCH_MODE, null));
+        this.eventBatchWindowMs = Math.max(0, config.optLong(EVENT_BATCH_WINDOW_MS, EVENT_BATCH_WINDOW_MS_DEF));
+        this.eventQueueCapacity = Math.max(1, config.optInt(EVENT_QUEUE_CAPACITY, EVENT_QUEUE_CAPACITY_DEF));
+        this.eventOverflowPolicy = parseEventOverflowPolicy(config.optString(EVENT_OVERFLOW_POLICY, null));
+        this.prepareIdleTimeoutMs = Math.max(0, config.optLong(PREPARE_IDLE_TIMEOUT_MS, PREPARE_IDLE_TIMEOUT_MS_DEF));
+        this.embedded = config.optBoolean(EMBEDDED, false);
+        this.videoFrame = parseVideoFrame(config.optJSONObject(VIDEO_FRAME));
+        this.captureQualityLadder = CaptureQualityLadder.parse(config.optJSONArray(CAPTURE_QUALITY_LADDER));
+        this.qualityProfile = QualityProfile.fromName(config.optString(QUALITY_PROFILE, null));
+        this.preferredVideoCodecs = parseStringArray(config.optJSONArray(PREFERRED_VIDEO_CODECS));
+        this.preferredAudioCodecs = parseStringArray(config.optJSONArray(PREFERRED_AUDIO_CODECS));
+        this.simulcast = config.optBoolean(SIMULCAST, false);
+        this.simulcastMaxLayers = Math.max(1, Math.min(SIMULCAST_MAX_LAYERS_DEF,
+                config.optInt(SIMULCAST_MAX_LAYERS, SIMULCAST_MAX_LAYERS_DEF)));
+        this.statsIntervalMs = Math.max(0, config.optLong(STATS_INTERVAL_MS, 0));
+        this.logLevel = config.optString(LOG_LEVEL, null);
+        this.logBufferSize = Math.max(0, config.optInt(LOG_BUFFER_SIZE, 0));
+        this.recordRoomTrace = config.optBoolean(RECORD_ROOM_TRACE, false);
+        this.dominantSpeaker = config.optBoolean(DOMINANT_SPEAKER, false);
+        this.dominantSpeakerHoldMs = Math.max(0, config.optLong(DOMINANT_SPEAKER_HOLD_MS, DOMINANT_SPEAKER_HOLD_MS_DEF));
+        this.lastN = Math.max(0, config.optInt(LAST_N, 0));
+        this.audioPlaybackLimit = Math.max(0, config.optInt(AUDIO_PLAYBACK_LIMIT, 0));
+        this.audioPlaybackHoldMs = Math.max(0, config.optLong(AUDIO_PLAYBACK_HOLD_MS, AUDIO_PLAYBACK_HOLD_MS_DEF));
+        this.thumbnailMaxFps = Math.max(0, config.optInt(THUMBNAIL_MAX_FPS, THUMBNAIL_MAX_FPS_DEF));
     }
 
     public String getPrimaryColorHex() {
@@ -77,4 +172,152 @@ public class CallConfig implements Serializable {
     public boolean isHangUpInApp() {
         return hangUpInApp;
     }
+
+    public String getI18nOngoingCall() {
+        return i18nOngoingCall;
+    }
+
+    public boolean isForegroundService() {
+        return foregroundService;
+    }
+
+    public int getSideViewPoolSize() {
+        return sideViewPoolSize;
+    }
+
+    public CallEventBatchMode getEventBatchMode() {
+        return eventBatchMode;
+    }
+
+    public long getEventBatchWindowMs() {
+        return eventBatchWindowMs;
+    }
+
+    public int getEventQueueCapacity() {
+        return eventQueueCapacity;
+    }
+
+    public CallEventDispatcher.OverflowPolicy getEventOverflowPolicy() {
+        return eventOverflowPolicy;
+    }
+
+    public long getPrepareIdleTimeoutMs() {
+        return prepareIdleTimeoutMs;
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    public int[] getVideoFrame() {
+        return videoFrame;
+    }
+
+    public CaptureQualityLadder getCaptureQualityLadder() {
+        return captureQualityLadder;
+    }
+
+    public QualityProfile getQualityProfile() {
+        return qualityProfile;
+    }
+
+    public String[] getPreferredVideoCodecs() {
+        return preferredVideoCodecs;
+    }
+
+    public String[] getPreferredAudioCodecs() {
+        return preferredAudioCodecs;
+    }
+
+    public boolean isSimulcast() {
+        return simulcast;
+    }
+
+    public int getSimulcastMaxLayers() {
+        return simulcastMaxLayers;
+    }
+
+    public long getStatsIntervalMs() {
+        return statsIntervalMs;
+    }
+
+    public String getLogLevel() {
+        return logLevel;
+    }
+
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    public boolean isRecordRoomTrace() {
+        return recordRoomTrace;
+    }
+
+    public boolean isDominantSpeaker() {
+        return dominantSpeaker;
+    }
+
+    public long getDominantSpeakerHoldMs() {
+        return dominantSpeakerHoldMs;
+    }
+
+    public int getLastN() {
+        return lastN;
+    }
+
+    public int getAudioPlaybackLimit() {
+        return audioPlaybackLimit;
+    }
+
+    public long getAudioPlaybackHoldMs() {
+        return audioPlaybackHoldMs;
+    }
+
+    public int getThumbnailMaxFps() {
+        return thumbnailMaxFps;
+    }
+
+    /*
+     * Whether remote audio levels have to be sampled
+     */
+    public boolean isAudioLevelSampling() {
+        return dominantSpeaker || lastN > 0 || audioPlaybackLimit > 0;
+    }
+
+    private static String[] parseStringArray(JSONArray array) {
+        if (array == null || array.length() == 0) { return null; }
+        String[] values = new String[array.length()];
+        for (int i = 0; i < array.length(); i++) {
+            values[i] = array.optString(i, "");
+        }
+        return values;
+    }
+
+    private static int[] parseVideoFrame(JSONObject frame) {
+        if (frame == null) { return new int[] { 0, 0, 0, 0 }; }
+        return new int[] {
+                frame.optInt("x", 0),
+                frame.optInt("y", 0),
+                Math.max(0, frame.optInt("width", 0)),
+                Math.max(0, frame.optInt("height", 0))
+        };
+    }
+
+    private static CallEventBatchMode parseEventBatchMode(String mode) {
+        if (mode == null) { return CallEventBatchMode.NONE; }
+        try {
+            return CallEventBatchMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return CallEventBatchMode.NONE;
+        }
+    }
+
+    private static CallEventDispatcher.OverflowPolicy parseEventOverflowPolicy(String policy) {
+        if (policy == null) { return CallEventDispatcher.OverflowPolicy.DROP_OLDEST; }
+        try {
+            return CallEventDispatcher.OverflowPolicy.valueOf(policy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return CallEventDispatcher.OverflowPolicy.DROP_OLDEST;
+        }
+    }
 }
@@ -16,5 +16,38 @@ public enum CallEvent {
     VIDEO_TRACK_REMOVED,
     HANG_UP,
     CLOSED,
-    PERMISSIONS_REQUIRED
+    PERMISSIONS_REQUIRED,
+    PUBLISHING_LAYERS,
+    STATS,
+    CALL_TIMINGS,
+    DOMINANT_SPEAKER_CHANGED;
+
+    /*
+     * Events after which no more events are expected for the call
+     */
+    public boolean isTerminal() {
+        return this == CONNECT_FAILURE
+                || this == DISCONNECTED
+                || this == DISCONNECTED_WITH_ERROR
+                || this == CLOSED;
+    }
+
+    /*
+     * Events the dispatcher may give up when its queue overflows. Terminal events and changes of
+     * the participants and their tracks are kept, since every one of them carries a different
+     * participant or track and JS could not rebuild the room without it.
+     */
+    public boolean isSheddable() {
+        switch (this) {
+            case PARTICIPANT_CONNECTED:
+            case PARTICIPANT_DISCONNECTED:
+            case AUDIO_TRACK_ADDED:
+            case AUDIO_TRACK_REMOVED:
+            case VIDEO_TRACK_ADDED:
+            case VIDEO_TRACK_REMOVED:
+                return false;
+            default:
+                return !isTerminal();
+        }
+    }
 }
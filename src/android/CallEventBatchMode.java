@@ -0,0 +1,10 @@
+package org.apache.cordova.twiliovideo;
+
+/*
+ * How CallEventBatcher groups events before delivering them
+ */
+public enum CallEventBatchMode {
+    NONE,
+    WINDOW,
+    FRAME
+}
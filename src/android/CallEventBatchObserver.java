@@ -0,0 +1,11 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.List;
+
+/*
+ * Event observer able to receive several events at once. When event batching is enabled the
+ * manager hands every flushed batch to this method, in publication order.
+ */
+public interface CallEventBatchObserver extends CallEventObserver {
+    void onEvents(List<CallEventRecord> records);
+}
@@ -0,0 +1,103 @@
+package org.apache.cordova.twiliovideo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Buffers call events and hands them over as a single batch, either once a time window has
+ * elapsed since the first buffered event or on the next display frame. Terminal events are
+ * never held back: they flush the buffer immediately, together with everything before them.
+ */
+public class CallEventBatcher {
+
+    public interface Sink {
+        void deliver(List<CallEventRecord> records);
+    }
+
+    private final Sink sink;
+    private final CallEventBatchMode mode;
+    private final long windowMs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object flushLock = new Object();
+
+    private List<CallEventRecord> pending = new ArrayList<>();
+    private boolean flushScheduled;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            flush();
+        }
+    };
+
+    private final Runnable postFrameCallbackRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    };
+
+    public CallEventBatcher(CallEventBatchMode mode, long windowMs, Sink sink) {
+        this.mode = mode;
+        this.windowMs = windowMs;
+        this.sink = sink;
+    }
+
+    public boolean isEnabled() {
+        return mode != CallEventBatchMode.NONE;
+    }
+
+    public void add(CallEventRecord record) {
+        boolean scheduleFlush;
+        synchronized (this) {
+            pending.add(record);
+            scheduleFlush = !flushScheduled && !record.getEvent().isTerminal();
+            flushScheduled |= scheduleFlush;
+        }
+
+        if (record.getEvent().isTerminal()) {
+            flush();
+        } else if (scheduleFlush) {
+            scheduleFlush();
+        }
+    }
+
+    /*
+     * Delivers everything buffered so far. Deliveries are serialized so batches never overtake
+     * each other.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<CallEventRecord> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    flushScheduled = false;
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                flushScheduled = false;
+            }
+            sink.deliver(batch);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (mode == CallEventBatchMode.FRAME) {
+            mainHandler.post(postFrameCallbackRunnable);
+        } else {
+            mainHandler.postDelayed(flushRunnable, windowMs);
+        }
+    }
+}
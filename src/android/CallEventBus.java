@@ -0,0 +1,175 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+ * Platform independent part of the event pipeline: sequencing into the history, the bounded
+ * dispatcher queue and per-observer delivery with replay. Batching is plugged in as a Stage by
+ * TwilioVideoManager. Only depends on the JDK and org.json so it can be benchmarked on a plain
+ * JVM.
+ */
+public class CallEventBus {
+
+    /*
+     * Optional step between the dispatcher and the observers. Returns false to let the record be
+     * delivered right away.
+     */
+    public interface Stage {
+        boolean offer(CallEventRecord record);
+    }
+
+    public interface FailureHandler {
+        void onObserverFailed(RuntimeException e);
+    }
+
+    // Copy-on-write so observers can be added or removed from any thread while events are published
+    private final List<EventObserverEntry> eventObservers = new CopyOnWriteArrayList<>();
+    private final CallEventHistory eventHistory;
+    private final CallEventDispatcher eventDispatcher;
+    private volatile Stage stage;
+    private volatile FailureHandler failureHandler;
+
+    public CallEventBus(int historySize, int queueCapacity, CallEventDispatcher.OverflowPolicy overflowPolicy) {
+        this.eventHistory = new CallEventHistory(historySize);
+        this.eventDispatcher = new CallEventDispatcher(queueCapacity, overflowPolicy,
+                new CallEventDispatcher.Sink() {
+                    @Override
+                    public void deliver(CallEventRecord record) {
+                        dispatch(record);
+                    }
+                });
+    }
+
+    public void setStage(Stage stage) {
+        this.stage = stage;
+    }
+
+    public void setFailureHandler(FailureHandler failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    public void addObserver(CallEventObserver observer) {
+        if (observer != null) {
+            eventObservers.add(new EventObserverEntry(observer, eventHistory.getLastSequence()));
+        }
+    }
+
+    /*
+     * Registers the observer and first replays every event still in the history whose sequence
+     * is greater than the given one. Live events are delivered after the replay, without gaps or
+     * duplicates.
+     */
+    public void addObserver(CallEventObserver observer, long sinceSequence) {
+        if (observer == null) { return; }
+        EventObserverEntry entry = new EventObserverEntry(observer, Long.MAX_VALUE);
+        synchronized (entry) {
+            // Registered before taking the snapshot so no event can fall in between, the dispatcher
+            // waits on the entry until the replay is done
+            eventObservers.add(entry);
+            // Read before the snapshot, an event appended in between is then either replayed or
+            // still newer than the delivered sequence
+            long lastSequence = eventHistory.getLastSequence();
+            List<CallEventRecord> missed = eventHistory.since(sinceSequence);
+            // A sequence ahead of the history comes from before a restart of the counter, it
+            // must not hold back the live events until the counter catches up
+            entry.deliveredSequence = missed.isEmpty()
+                    ? Math.max(Math.min(sinceSequence, lastSequence), 0)
+                    : missed.get(missed.size() - 1).getSequence();
+            if (!missed.isEmpty()) {
+                entry.deliver(missed);
+            }
+        }
+    }
+
+    public void removeObserver(CallEventObserver observer) {
+        for (EventObserverEntry entry : eventObservers) {
+            if (entry.observer == observer) {
+                eventObservers.remove(entry);
+            }
+        }
+    }
+
+    public long getLastSequence() {
+        return eventHistory.getLastSequence();
+    }
+
+    public CallEventDispatcher getDispatcher() {
+        return eventDispatcher;
+    }
+
+    /*
+     * Events are recorded in the history, then queued and delivered to the observers from the event
+     * dispatcher thread
+     */
+    public void publish(CallEvent event, JSONObject data) {
+        // Queue order has to follow sequence order
+        synchronized (eventHistory) {
+            eventDispatcher.offer(eventHistory.append(event, data));
+        }
+    }
+
+    /*
+     * Hands records to every observer, skipping the ones each observer already got
+     */
+    public void deliver(List<CallEventRecord> records) {
+        for (EventObserverEntry entry : eventObservers) {
+            try {
+                synchronized (entry) {
+                    entry.deliverNewerThanDelivered(records);
+                }
+            } catch (RuntimeException e) {
+                // A failing observer must not keep the others from getting the events
+                FailureHandler handler = failureHandler;
+                if (handler != null) {
+                    handler.onObserverFailed(e);
+                }
+            }
+        }
+    }
+
+    private void dispatch(CallEventRecord record) {
+        Stage currentStage = stage;
+        if (currentStage == null || !currentStage.offer(record)) {
+            deliver(Collections.singletonList(record));
+        }
+    }
+
+    /*
+     * An observer and the sequence of the last event it got, guarded by the entry's own lock
+     */
+    private static class EventObserverEntry {
+
+        private final CallEventObserver observer;
+        private long deliveredSequence;
+
+        EventObserverEntry(CallEventObserver observer, long deliveredSequence) {
+            this.observer = observer;
+            this.deliveredSequence = deliveredSequence;
+        }
+
+        void deliverNewerThanDelivered(List<CallEventRecord> records) {
+            int first = 0;
+            while (first < records.size() && records.get(first).getSequence() <= deliveredSequence) {
+                first++;
+            }
+            if (first == records.size()) { return; }
+            List<CallEventRecord> newer = first == 0 ? records : records.subList(first, records.size());
+            deliveredSequence = newer.get(newer.size() - 1).getSequence();
+            deliver(newer);
+        }
+
+        void deliver(List<CallEventRecord> records) {
+            if (observer instanceof CallEventBatchObserver) {
+                ((CallEventBatchObserver) observer).onEvents(records);
+                return;
+            }
+            for (CallEventRecord record : records) {
+                observer.onEvent(record.getEvent().name(), record.getData());
+            }
+        }
+    }
+}
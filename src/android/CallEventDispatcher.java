@@ -0,0 +1,133 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Hands published events over to a single background thread so Twilio SDK callbacks never wait
+ * on JSON building or bridge sends. The queue is lock-free and bounded: when it is full the
+ * overflow policy decides which queued event is given up. Only sheddable events are given up, so
+ * the queue can stay above capacity while it holds nothing else.
+ */
+public class CallEventDispatcher {
+
+    public enum OverflowPolicy {
+        // Drop the oldest queued event
+        DROP_OLDEST,
+        // Drop the oldest queued event of the same type as the new one, falling back to DROP_OLDEST
+        COLLAPSE
+    }
+
+    public interface Sink {
+        void deliver(CallEventRecord record);
+    }
+
+    private static final String THREAD_NAME = "TwilioVideoEvents";
+
+    private final ConcurrentLinkedQueue<CallEventRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong collapsedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final Sink sink;
+    private final Thread worker;
+
+    private volatile int capacity;
+    private volatile OverflowPolicy overflowPolicy;
+
+    public CallEventDispatcher(int capacity, OverflowPolicy overflowPolicy, Sink sink) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.sink = sink;
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, THREAD_NAME);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void offer(CallEventRecord record) {
+        queue.offer(record);
+        if (depth.incrementAndGet() > capacity) {
+            shed(record);
+        }
+        LockSupport.unpark(worker);
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getCollapsedCount() {
+        return collapsedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    private void drain() {
+        while (true) {
+            CallEventRecord record = queue.poll();
+            if (record == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            depth.decrementAndGet();
+            try {
+                sink.deliver(record);
+            } catch (RuntimeException e) {
+                // Observer failures are reported by the sink, this only keeps the worker alive
+                failedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /*
+     * Only walks the queue when it overflows
+     */
+    private void shed(CallEventRecord incoming) {
+        if (overflowPolicy == OverflowPolicy.COLLAPSE
+                && incoming.getEvent().isSheddable()
+                && removeOldest(incoming.getEvent(), incoming)) {
+            collapsedCount.incrementAndGet();
+            return;
+        }
+        if (removeOldest(null, incoming)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private boolean removeOldest(CallEvent type, CallEventRecord incoming) {
+        Iterator<CallEventRecord> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            CallEventRecord queued = iterator.next();
+            if (queued == incoming || !queued.getEvent().isSheddable()) { continue; }
+            if (type != null && queued.getEvent() != type) { continue; }
+            // May lose the race against the worker, in which case try the next one
+            if (queue.remove(queued)) {
+                depth.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Fixed-size ring of the most recently published events. Sequence numbers start at 1 and keep
+ * growing across calls, so an observer that knows the last sequence it saw can ask for
+ * everything it missed as long as it is still in the ring.
+ */
+public class CallEventHistory {
+
+    private final CallEventRecord[] records;
+    private long lastSequence;
+
+    public CallEventHistory(int capacity) {
+        this.records = new CallEventRecord[capacity];
+    }
+
+    public synchronized CallEventRecord append(CallEvent event, JSONObject data) {
+        long sequence = ++lastSequence;
+        CallEventRecord record = new CallEventRecord(sequence, System.currentTimeMillis(), event, data);
+        records[(int) (sequence % records.length)] = record;
+        return record;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /*
+     * Records with a sequence greater than the given one, oldest first
+     */
+    public synchronized List<CallEventRecord> since(long sequence) {
+        long first = Math.max(sequence + 1, lastSequence - records.length + 1);
+        first = Math.max(first, 1);
+        List<CallEventRecord> missed = new ArrayList<>();
+        for (long seq = first; seq <= lastSequence; seq++) {
+            missed.add(records[(int) (seq % records.length)]);
+        }
+        return missed;
+    }
+}
@@ -0,0 +1,38 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONObject;
+
+/*
+ * A published call event together with its payload, its position in the event history and the
+ * wall clock time it was published at
+ */
+public class CallEventRecord {
+
+    private final long sequence;
+    private final long timestamp;
+    private final CallEvent event;
+    private final JSONObject data;
+
+    public CallEventRecord(long sequence, long timestamp, CallEvent event, JSONObject data) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.event = event;
+        this.data = data;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public CallEvent getEvent() {
+        return event;
+    }
+
+    public JSONObject getData() {
+        return data;
+    }
+}
@@ -0,0 +1,223 @@
+package org.apache.cordova.twiliovideo;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/*
+ * Level gated key/value logging for the SDK callback paths:
+ *
+ *     CallLog.i("onVideoTrackSubscribed").add("identity", identity).add("enabled", enabled).log();
+ *
+ * When the level is off the call returns a shared no-op entry, so nothing is formatted, boxed or
+ * allocated. Otherwise the message is built in a per-thread StringBuilder. Entries can also be
+ * kept in a fixed size in-memory ring, down to DEBUG, and dumped to a file when a call fails.
+ */
+public class CallLog {
+
+    public static final int NONE = Integer.MAX_VALUE;
+    private static final int LOGCAT_LEVEL_DEF = Log.WARN;
+    private static final int RING_LEVEL = Log.DEBUG;
+    private static final int RING_ENTRY_CAPACITY = 256;
+
+    private static volatile int logcatLevel = LOGCAT_LEVEL_DEF;
+    private static volatile Ring ring;
+
+    private static final Entry DISABLED = new Entry();
+    private static final ThreadLocal<Entry> ENTRIES = new ThreadLocal<Entry>() {
+        @Override
+        protected Entry initialValue() {
+            return new Entry();
+        }
+    };
+
+    public static class Entry {
+        private final StringBuilder message = new StringBuilder(RING_ENTRY_CAPACITY);
+        private int level;
+
+        public Entry add(String key, String value) {
+            if (this != DISABLED) { message.append(' ').append(key).append('=').append(value); }
+            return this;
+        }
+
+        public Entry add(String key, boolean value) {
+            if (this != DISABLED) { message.append(' ').append(key).append('=').append(value); }
+            return this;
+        }
+
+        public Entry add(String key, int value) {
+            if (this != DISABLED) { message.append(' ').append(key).append('=').append(value); }
+            return this;
+        }
+
+        public Entry add(String key, long value) {
+            if (this != DISABLED) { message.append(' ').append(key).append('=').append(value); }
+            return this;
+        }
+
+        public void log() {
+            if (this == DISABLED) { return; }
+            if (level >= logcatLevel) {
+                Log.println(level, TwilioVideo.TAG, message.toString());
+            }
+            Ring currentRing = ring;
+            if (currentRing != null && level >= RING_LEVEL) {
+                currentRing.append(level, message);
+            }
+        }
+
+        private Entry start(int level, String message) {
+            this.level = level;
+            this.message.setLength(0);
+            this.message.append(message);
+            return this;
+        }
+    }
+
+    /*
+     * Recent entries as preallocated character buffers, overwritten in place
+     */
+    private static class Ring {
+        private final char[][] entries;
+        private final int[] lengths;
+        private final int[] levels;
+        private final long[] timestamps;
+        private int next;
+        private int size;
+
+        Ring(int capacity) {
+            entries = new char[capacity][RING_ENTRY_CAPACITY];
+            lengths = new int[capacity];
+            levels = new int[capacity];
+            timestamps = new long[capacity];
+        }
+
+        synchronized void append(int level, StringBuilder message) {
+            int length = Math.min(message.length(), RING_ENTRY_CAPACITY);
+            message.getChars(0, length, entries[next], 0);
+            lengths[next] = length;
+            levels[next] = level;
+            timestamps[next] = SystemClock.elapsedRealtime();
+            next = (next + 1) % entries.length;
+            size = Math.min(size + 1, entries.length);
+        }
+
+        synchronized String snapshot() {
+            StringBuilder out = new StringBuilder(size * 64);
+            int first = (next - size + entries.length) % entries.length;
+            for (int i = 0; i < size; i++) {
+                int index = (first + i) % entries.length;
+                out.append(timestamps[index]).append(' ')
+                        .append(levelName(levels[index])).append(' ')
+                        .append(entries[index], 0, lengths[index]).append('\n');
+            }
+            return out.toString();
+        }
+    }
+
+    private CallLog() {
+    }
+
+    /*
+     * bufferSize is the number of entries kept in memory, 0 disables the ring
+     */
+    public static void configure(int level, int bufferSize) {
+        logcatLevel = level;
+        ring = bufferSize > 0 ? new Ring(bufferSize) : null;
+    }
+
+    /*
+     * "verbose", "debug", "info", "warn", "error" or "none"
+     */
+    public static int parseLevel(String level) {
+        if (level == null) { return LOGCAT_LEVEL_DEF; }
+        switch (level.toLowerCase(Locale.ROOT)) {
+            case "verbose":
+                return Log.VERBOSE;
+            case "debug":
+                return Log.DEBUG;
+            case "info":
+                return Log.INFO;
+            case "warn":
+                return Log.WARN;
+            case "error":
+                return Log.ERROR;
+            case "none":
+                return NONE;
+            default:
+                return LOGCAT_LEVEL_DEF;
+        }
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= logcatLevel || (ring != null && level >= RING_LEVEL);
+    }
+
+    public static Entry d(String message) {
+        return entry(Log.DEBUG, message);
+    }
+
+    public static Entry i(String message) {
+        return entry(Log.INFO, message);
+    }
+
+    public static Entry w(String message) {
+        return entry(Log.WARN, message);
+    }
+
+    public static Entry e(String message) {
+        return entry(Log.ERROR, message);
+    }
+
+    /*
+     * Writes the in-memory entries to a file and returns it, or null when the ring is disabled or
+     * the write failed. The write is synchronous so the file is complete once its path is handed
+     * out, the snapshot is at most a few tens of kilobytes.
+     */
+    public static File dump(File directory) {
+        Ring currentRing = ring;
+        if (currentRing == null) { return null; }
+        File file = new File(directory, "twilio-video-call.log");
+        Writer writer = null;
+        try {
+            writer = new FileWriter(file, false);
+            writer.write(currentRing.snapshot());
+            return file;
+        } catch (IOException e) {
+            Log.e(TwilioVideo.TAG, "Error dumping call log", e);
+            return null;
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static Entry entry(int level, String message) {
+        if (!isLoggable(level)) { return DISABLED; }
+        return ENTRIES.get().start(level, message);
+    }
+
+    private static String levelName(int level) {
+        switch (level) {
+            case Log.VERBOSE:
+                return "V";
+            case Log.DEBUG:
+                return "D";
+            case Log.INFO:
+                return "I";
+            case Log.WARN:
+                return "W";
+            default:
+                return "E";
+        }
+    }
+}
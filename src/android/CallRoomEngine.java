@@ -0,0 +1,8 @@
+package org.apache.cordova.twiliovideo;
+
+/*
+ * Source of room callbacks: TwilioRoomEngine for real calls, or a simulated room for load tests
+ */
+public interface CallRoomEngine {
+    void setListener(CallRoomListener listener);
+}
@@ -0,0 +1,25 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.List;
+
+/*
+ * Participant and track callbacks of a room, reduced to SIDs and names so they can come from the
+ * Twilio SDK or from a simulated room. Participants reported before onConnected were already in
+ * the room when the call connected. Tracks are unsubscribed before their participant
+ * disconnects. The audio activity sampled by the host comes in through the same interface, so a
+ * room trace can replay it.
+ */
+public interface CallRoomListener {
+    void onConnected();
+    void onDisconnected();
+    void onParticipantConnected(String participantSid, String identity);
+    void onParticipantDisconnected(String participantSid);
+    void onAudioTrackSubscribed(String participantSid, String trackSid, String trackName);
+    void onAudioTrackUnsubscribed(String participantSid, String trackSid);
+    void onVideoTrackSubscribed(String participantSid, String trackSid, String trackName, boolean enabled);
+    void onVideoTrackUnsubscribed(String participantSid, String trackSid);
+    void onVideoTrackEnabledChanged(String participantSid, String trackSid, boolean enabled);
+    // Audio tracks heard in one sample, loudest first
+    void onSpeechDetected(List<String> audioTrackSids, long nowMs);
+    void onDominantSpeakerChanged(String audioTrackSid);
+}
@@ -0,0 +1,231 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * What the call does with the room callbacks, independently of where they come from: keeps the
+ * roster, drives the video layout model and publishes the participant and track events. The host
+ * applies the layout operations to its views and reacts to participant count changes.
+ *
+ * Joins of participants that were already in the room when it connected are not published.
+ * With a last-N limit, the video tracks of the participants beyond it stay paused on their tiles
+ * until they speak. With an audio playback limit, only the most recently heard audio tracks play.
+ */
+public class CallRoomSession implements CallRoomListener {
+
+    public interface Host {
+        void publishEvent(CallEvent event, JSONObject data);
+        void onParticipantCountChanged(int participantCount);
+        void onVideoTrackEnabledChanged(String trackSid, boolean enabled);
+        void onAudioPlaybackChanged(String trackSid, boolean enabled);
+    }
+
+    private static final String SCREEN_TRACK_NAME = "screen";
+
+    private final Host host;
+    private final VideoLayoutModel.Operations layoutOperations;
+    private final VideoLayoutModel layoutModel = new VideoLayoutModel();
+    private final LastNPolicy lastNPolicy;
+    private final AudioPlaybackPolicy audioPlaybackPolicy;
+    private final LastNPolicy.Listener visibilityListener = new LastNPolicy.Listener() {
+        @Override
+        public void onVisibilityChanged(String participantSid, boolean visible) {
+            Set<String> trackSids = participantVideoTracks.get(participantSid);
+            if (trackSids == null) { return; }
+            for (String trackSid : trackSids) {
+                layoutModel.setPaused(trackSid, !visible, layoutOperations);
+            }
+        }
+    };
+
+    // Participant SID -> identity, in join order
+    private final Map<String, String> participants = new LinkedHashMap<>();
+    private final AudioPlaybackPolicy.Listener playbackListener = new AudioPlaybackPolicy.Listener() {
+        @Override
+        public void onPlaybackChanged(String audioTrackSid, boolean enabled) {
+            host.onAudioPlaybackChanged(audioTrackSid, enabled);
+        }
+    };
+
+    // Audio track SID -> participant SID
+    private final Map<String, String> audioTrackOwners = new HashMap<>();
+    // Participant SID -> SIDs of its subscribed video tracks
+    private final Map<String, Set<String>> participantVideoTracks = new HashMap<>();
+    private boolean connected;
+
+    public CallRoomSession(Host host, VideoLayoutModel.Operations layoutOperations) {
+        this(host, layoutOperations, new CallConfig());
+    }
+
+    public CallRoomSession(Host host, VideoLayoutModel.Operations layoutOperations, CallConfig config) {
+        this.host = host;
+        this.layoutOperations = layoutOperations;
+        this.lastNPolicy = new LastNPolicy(config.getLastN());
+        this.audioPlaybackPolicy = new AudioPlaybackPolicy(config.getAudioPlaybackLimit(),
+                config.getAudioPlaybackHoldMs());
+    }
+
+    @Override
+    public void onConnected() {
+        connected = true;
+    }
+
+    @Override
+    public void onDisconnected() {
+        connected = false;
+    }
+
+    @Override
+    public void onParticipantConnected(String participantSid, String identity) {
+        participants.put(participantSid, identity);
+        if (!participantVideoTracks.containsKey(participantSid)) {
+            participantVideoTracks.put(participantSid, new LinkedHashSet<String>());
+        }
+        lastNPolicy.add(participantSid);
+        host.onParticipantCountChanged(participants.size());
+        if (connected) {
+            host.publishEvent(CallEvent.PARTICIPANT_CONNECTED, toEventData(participantSid, identity, null));
+        }
+    }
+
+    @Override
+    public void onParticipantDisconnected(String participantSid) {
+        // Tracks are normally unsubscribed before the participant leaves, but make sure no
+        // renderer is left attached to a track of a participant that is gone
+        Set<String> trackSids = participantVideoTracks.get(participantSid);
+        if (trackSids != null) {
+            for (String trackSid : new ArrayList<>(trackSids)) {
+                onVideoTrackUnsubscribed(participantSid, trackSid);
+            }
+            participantVideoTracks.remove(participantSid);
+        }
+        lastNPolicy.remove(participantSid, visibilityListener);
+        String identity = participants.remove(participantSid);
+        host.onParticipantCountChanged(participants.size());
+        host.publishEvent(CallEvent.PARTICIPANT_DISCONNECTED, toEventData(participantSid, identity, null));
+    }
+
+    @Override
+    public void onAudioTrackSubscribed(String participantSid, String trackSid, String trackName) {
+        audioTrackOwners.put(trackSid, participantSid);
+        host.publishEvent(CallEvent.AUDIO_TRACK_ADDED, toEventData(participantSid, trackSid));
+        audioPlaybackPolicy.add(trackSid, playbackListener);
+    }
+
+    @Override
+    public void onAudioTrackUnsubscribed(String participantSid, String trackSid) {
+        audioTrackOwners.remove(trackSid);
+        audioPlaybackPolicy.remove(trackSid, playbackListener);
+        host.publishEvent(CallEvent.AUDIO_TRACK_REMOVED, toEventData(participantSid, trackSid));
+    }
+
+    @Override
+    public void onVideoTrackSubscribed(String participantSid, String trackSid, String trackName, boolean enabled) {
+        Set<String> trackSids = participantVideoTracks.get(participantSid);
+        if (trackSids == null || !trackSids.add(trackSid)) { return; }
+        host.publishEvent(CallEvent.VIDEO_TRACK_ADDED, toEventData(participantSid, trackSid));
+        if (!lastNPolicy.isVisible(participantSid)) {
+            layoutModel.setPaused(trackSid, true, layoutOperations);
+        }
+        layoutModel.onTrackSubscribed(trackSid, SCREEN_TRACK_NAME.equals(trackName), layoutOperations);
+    }
+
+    @Override
+    public void onVideoTrackUnsubscribed(String participantSid, String trackSid) {
+        Set<String> trackSids = participantVideoTracks.get(participantSid);
+        if (trackSids == null || !trackSids.remove(trackSid)) { return; }
+        layoutModel.onTrackUnsubscribed(trackSid, layoutOperations);
+        host.publishEvent(CallEvent.VIDEO_TRACK_REMOVED, toEventData(participantSid, trackSid));
+    }
+
+    @Override
+    public void onVideoTrackEnabledChanged(String participantSid, String trackSid, boolean enabled) {
+        host.onVideoTrackEnabledChanged(trackSid, enabled);
+    }
+
+    /*
+     * Publishes the new dominant speaker and moves their camera to the primary view
+     */
+    @Override
+    public void onDominantSpeakerChanged(String audioTrackSid) {
+        String participantSid = audioTrackOwners.get(audioTrackSid);
+        if (participantSid == null) { return; }
+        host.publishEvent(CallEvent.DOMINANT_SPEAKER_CHANGED, toEventData(participantSid, null));
+        lastNPolicy.touch(participantSid, visibilityListener);
+        Set<String> trackSids = participantVideoTracks.get(participantSid);
+        if (trackSids == null) { return; }
+        for (String trackSid : trackSids) {
+            if (!layoutModel.isScreenTrack(trackSid)) {
+                layoutModel.promote(trackSid, layoutOperations);
+                return;
+            }
+        }
+    }
+
+    /*
+     * Audio tracks heard in the last sample, loudest first. Their owners become the most recently
+     * active participants, the loudest one last, and muted tracks may get a playback slot.
+     */
+    @Override
+    public void onSpeechDetected(List<String> audioTrackSids, long nowMs) {
+        for (int i = audioTrackSids.size() - 1; i >= 0; i--) {
+            String participantSid = audioTrackOwners.get(audioTrackSids.get(i));
+            if (participantSid != null) {
+                lastNPolicy.touch(participantSid, visibilityListener);
+            }
+        }
+        audioPlaybackPolicy.onHeard(audioTrackSids, nowMs, playbackListener);
+    }
+
+    public int getParticipantCount() {
+        return participants.size();
+    }
+
+    public VideoLayoutModel getLayoutModel() {
+        return layoutModel;
+    }
+
+    /*
+     * Detaches every renderer and forgets the roster. Used when the call UI is torn down.
+     */
+    public void clear() {
+        layoutModel.clear(layoutOperations);
+        participants.clear();
+        participantVideoTracks.clear();
+        audioTrackOwners.clear();
+        lastNPolicy.clear();
+        audioPlaybackPolicy.clear();
+        connected = false;
+    }
+
+    private JSONObject toEventData(String participantSid, String trackSid) {
+        return toEventData(participantSid, participants.get(participantSid), trackSid);
+    }
+
+    /*
+     * Payload of participant and track events
+     */
+    private JSONObject toEventData(String participantSid, String identity, String trackSid) {
+        JSONObject data = new JSONObject();
+        try {
+            data.put("participantSid", participantSid);
+            data.put("participantIdentity", identity);
+            data.put("participantCount", participants.size());
+            if (trackSid != null) {
+                data.put("trackSid", trackSid);
+            }
+        } catch (JSONException e) {
+            // Only thrown for non finite numbers
+        }
+        return data;
+    }
+}
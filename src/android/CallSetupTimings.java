@@ -0,0 +1,108 @@
+package org.apache.cordova.twiliovideo;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.twilio.video.VideoRenderer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/*
+ * Monotonic timestamps of the call setup milestones, from openRoom to the first remote frame.
+ * Only the first occurrence of each milestone is kept. Once the first remote frame is rendered
+ * the timings are published as a CALL_TIMINGS event; they can be queried at any time.
+ */
+public class CallSetupTimings {
+
+    public enum Milestone {
+        OPEN_ROOM("openRoom"),
+        CALL_UI_CREATED("callUiCreated"),
+        PERMISSIONS_GRANTED("permissionsGranted"),
+        LOCAL_TRACKS_CREATED("localTracksCreated"),
+        FIRST_CAMERA_FRAME("firstCameraFrame"),
+        CONNECT_STARTED("connectStarted"),
+        ROOM_CONNECTED("roomConnected"),
+        FIRST_REMOTE_TRACK_SUBSCRIBED("firstRemoteTrackSubscribed"),
+        FIRST_REMOTE_FRAME("firstRemoteFrame");
+
+        private final String key;
+
+        Milestone(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final long NOT_REACHED = -1;
+
+    // elapsedRealtime per milestone ordinal
+    private final long[] timestamps = new long[Milestone.values().length];
+
+    /*
+     * Marks the first remote frame on whichever remote view renders first
+     */
+    private final VideoRenderer.Listener firstRemoteFrameListener = new VideoRenderer.Listener() {
+        @Override
+        public void onFirstFrame() {
+            mark(Milestone.FIRST_REMOTE_FRAME);
+        }
+
+        @Override
+        public void onFrameDimensionsChanged(int width, int height, int rotation) {
+        }
+    };
+
+    public CallSetupTimings() {
+        reset();
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = NOT_REACHED;
+        }
+    }
+
+    public void mark(Milestone milestone) {
+        long now = SystemClock.elapsedRealtime();
+        JSONObject completed = null;
+        synchronized (this) {
+            if (timestamps[milestone.ordinal()] != NOT_REACHED) { return; }
+            timestamps[milestone.ordinal()] = now;
+            if (milestone == Milestone.FIRST_REMOTE_FRAME) {
+                completed = toJson();
+            }
+        }
+        if (completed != null) {
+            TwilioVideoManager.getInstance().publishEvent(CallEvent.CALL_TIMINGS, completed);
+        }
+    }
+
+    public VideoRenderer.Listener getFirstRemoteFrameListener() {
+        return firstRemoteFrameListener;
+    }
+
+    /*
+     * Milliseconds of every reached milestone since openRoom, or since the earliest milestone
+     * when the call was not opened through openRoom
+     */
+    public synchronized JSONObject toJson() {
+        long base = Long.MAX_VALUE;
+        for (long timestamp : timestamps) {
+            if (timestamp != NOT_REACHED && timestamp < base) {
+                base = timestamp;
+            }
+        }
+        JSONObject json = new JSONObject();
+        try {
+            for (Milestone milestone : Milestone.values()) {
+                long timestamp = timestamps[milestone.ordinal()];
+                if (timestamp != NOT_REACHED) {
+                    json.put(milestone.key, timestamp - base);
+                }
+            }
+        } catch (JSONException e) {
+            Log.e(TwilioVideo.TAG, "Error building call timings");
+        }
+        return json;
+    }
+}
@@ -0,0 +1,160 @@
+package org.apache.cordova.twiliovideo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import com.twilio.video.Camera2Capturer;
+import com.twilio.video.CameraCapturer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webrtc.Camera2Enumerator;
+import org.webrtc.CameraEnumerationAndroid;
+
+import java.util.List;
+
+/*
+ * Camera facts that only change with the device or the OS build: Camera2 support, the front and
+ * back camera IDs, and the capture formats each camera supports. They are probed once, kept in
+ * SharedPreferences and probed again only when the build fingerprint changes.
+ */
+public class CameraCapabilities {
+
+    private static final String PREFS_NAME = "TwilioVideoCameraCapabilities";
+    private static final String FINGERPRINT_KEY = "fingerprint";
+    private static final String CAPABILITIES_KEY = "capabilities";
+
+    private static final String CAMERA2_SUPPORTED_PROP = "camera2Supported";
+    private static final String FRONT_CAMERA_ID_PROP = "frontCameraId";
+    private static final String BACK_CAMERA_ID_PROP = "backCameraId";
+    private static final String FRONT_CAMERA_AVAILABLE_PROP = "frontCameraAvailable";
+    private static final String BACK_CAMERA_AVAILABLE_PROP = "backCameraAvailable";
+    private static final String FORMATS_PROP = "formats";
+
+    private static volatile CameraCapabilities instance;
+
+    private final boolean camera2Supported;
+    private final String frontCameraId;
+    private final String backCameraId;
+    private final boolean frontCameraAvailable;
+    private final boolean backCameraAvailable;
+    // Camera ID -> [{width, height, minFps, maxFps}]. Only filled in for Camera2 devices
+    private final JSONObject formats;
+
+    private CameraCapabilities(JSONObject json) {
+        this.camera2Supported = json.optBoolean(CAMERA2_SUPPORTED_PROP, false);
+        this.frontCameraId = json.optString(FRONT_CAMERA_ID_PROP, null);
+        this.backCameraId = json.optString(BACK_CAMERA_ID_PROP, null);
+        this.frontCameraAvailable = json.optBoolean(FRONT_CAMERA_AVAILABLE_PROP, false);
+        this.backCameraAvailable = json.optBoolean(BACK_CAMERA_AVAILABLE_PROP, false);
+        JSONObject formats = json.optJSONObject(FORMATS_PROP);
+        this.formats = formats != null ? formats : new JSONObject();
+    }
+
+    public static CameraCapabilities get(Context context) {
+        CameraCapabilities capabilities = instance;
+        if (capabilities != null) {
+            return capabilities;
+        }
+        synchronized (CameraCapabilities.class) {
+            if (instance == null) {
+                instance = load(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    public boolean isCamera2Supported() {
+        return camera2Supported;
+    }
+
+    public String getFrontCameraId() {
+        return frontCameraId;
+    }
+
+    public String getBackCameraId() {
+        return backCameraId;
+    }
+
+    public boolean isSourceAvailable(CameraCapturer.CameraSource cameraSource) {
+        if (cameraSource == CameraCapturer.CameraSource.FRONT_CAMERA) {
+            return camera2Supported ? frontCameraId != null : frontCameraAvailable;
+        }
+        return camera2Supported ? backCameraId != null : backCameraAvailable;
+    }
+
+    public JSONArray getSupportedFormats(String cameraId) {
+        JSONArray cameraFormats = formats.optJSONArray(cameraId);
+        return cameraFormats != null ? cameraFormats : new JSONArray();
+    }
+
+    private static CameraCapabilities load(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (Build.FINGERPRINT.equals(preferences.getString(FINGERPRINT_KEY, null))) {
+            try {
+                return new CameraCapabilities(new JSONObject(preferences.getString(CAPABILITIES_KEY, "")));
+            } catch (JSONException e) {
+                Log.w(TwilioVideo.TAG, "Stored camera capabilities are not valid, probing them again");
+            }
+        }
+
+        JSONObject probed = probe(context);
+        preferences.edit()
+                .putString(FINGERPRINT_KEY, Build.FINGERPRINT)
+                .putString(CAPABILITIES_KEY, probed.toString())
+                .apply();
+        return new CameraCapabilities(probed);
+    }
+
+    private static JSONObject probe(Context context) {
+        JSONObject json = new JSONObject();
+        try {
+            boolean camera2Supported = Camera2Capturer.isSupported(context);
+            json.put(CAMERA2_SUPPORTED_PROP, camera2Supported);
+            if (camera2Supported) {
+                probeCamera2(context, json);
+            } else {
+                json.put(FRONT_CAMERA_AVAILABLE_PROP,
+                        CameraCapturer.isSourceAvailable(CameraCapturer.CameraSource.FRONT_CAMERA));
+                json.put(BACK_CAMERA_AVAILABLE_PROP,
+                        CameraCapturer.isSourceAvailable(CameraCapturer.CameraSource.BACK_CAMERA));
+            }
+        } catch (JSONException e) {
+            Log.e(TwilioVideo.TAG, "Error storing camera capabilities");
+        }
+        return json;
+    }
+
+    private static void probeCamera2(Context context, JSONObject json) throws JSONException {
+        Camera2Enumerator camera2Enumerator = new Camera2Enumerator(context);
+        JSONObject formats = new JSONObject();
+        for (String cameraId : camera2Enumerator.getDeviceNames()) {
+            if (camera2Enumerator.isFrontFacing(cameraId)) {
+                json.put(FRONT_CAMERA_ID_PROP, cameraId);
+            }
+            if (camera2Enumerator.isBackFacing(cameraId)) {
+                json.put(BACK_CAMERA_ID_PROP, cameraId);
+            }
+
+            JSONArray cameraFormats = new JSONArray();
+            List<CameraEnumerationAndroid.CaptureFormat> supportedFormats =
+                    camera2Enumerator.getSupportedFormats(cameraId);
+            if (supportedFormats != null) {
+                for (CameraEnumerationAndroid.CaptureFormat format : supportedFormats) {
+                    JSONObject formatJson = new JSONObject();
+                    formatJson.put("width", format.width);
+                    formatJson.put("height", format.height);
+                    // Frame rates are reported multiplied by 1000
+                    formatJson.put("minFps", format.framerate.min / 1000);
+                    formatJson.put("maxFps", format.framerate.max / 1000);
+                    cameraFormats.put(formatJson);
+                }
+            }
+            formats.put(cameraId, cameraFormats);
+        }
+        json.put(FORMATS_PROP, formats);
+    }
+}
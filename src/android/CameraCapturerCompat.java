@@ -1,15 +1,12 @@
 package org.apache.cordova.twiliovideo;
 
 import android.content.Context;
-import android.util.Log;
 import android.util.Pair;
 
 import com.twilio.video.Camera2Capturer;
 import com.twilio.video.CameraCapturer;
 import com.twilio.video.VideoCapturer;
 
-import org.webrtc.Camera2Enumerator;
-
 /*
  * Simple wrapper class that uses Camera2Capturer with supported devices.
  */
@@ -22,29 +19,50 @@ public class CameraCapturerCompat {
     private final Camera2Capturer.Listener camera2Listener = new Camera2Capturer.Listener() {
         @Override
         public void onFirstFrameAvailable() {
-            Log.i(TwilioVideo.TAG, "onFirstFrameAvailable");
+            CallLog.i("onFirstFrameAvailable").log();
+            TwilioVideoManager.getInstance().getCallSetupTimings()
+                    .mark(CallSetupTimings.Milestone.FIRST_CAMERA_FRAME);
         }
 
         @Override
         public void onCameraSwitched(String newCameraId) {
-            Log.i(TwilioVideo.TAG, "onCameraSwitched: newCameraId = " + newCameraId);
+            CallLog.i("onCameraSwitched").add("newCameraId", newCameraId).log();
         }
 
         @Override
         public void onError(Camera2Capturer.Exception camera2CapturerException) {
-            Log.e(TwilioVideo.TAG, camera2CapturerException.getMessage());
+            CallLog.e("onError").add("message", camera2CapturerException.getMessage()).log();
+        }
+    };
+    private final CameraCapturer.Listener camera1Listener = new CameraCapturer.Listener() {
+        @Override
+        public void onFirstFrameAvailable() {
+            CallLog.i("onFirstFrameAvailable").log();
+            TwilioVideoManager.getInstance().getCallSetupTimings()
+                    .mark(CallSetupTimings.Milestone.FIRST_CAMERA_FRAME);
+        }
+
+        @Override
+        public void onCameraSwitched() {
+            CallLog.i("onCameraSwitched").log();
+        }
+
+        @Override
+        public void onError(int errorCode) {
+            CallLog.e("onError").add("errorCode", errorCode).log();
         }
     };
 
     public CameraCapturerCompat(Context context,
                                 CameraCapturer.CameraSource cameraSource) {
-        if (Camera2Capturer.isSupported(context)) {
-            setCameraPairs(context);
+        CameraCapabilities capabilities = CameraCapabilities.get(context);
+        if (capabilities.isCamera2Supported()) {
+            setCameraPairs(capabilities);
             camera2Capturer = new Camera2Capturer(context,
                     getCameraId(cameraSource),
                     camera2Listener);
         } else {
-            camera1Capturer = new CameraCapturer(context, cameraSource);
+            camera1Capturer = new CameraCapturer(context, cameraSource, camera1Listener);
         }
     }
 
@@ -87,15 +105,15 @@ public class CameraCapturerCompat {
         return camera1Capturer != null;
     }
 
-    private void setCameraPairs(Context context) {
-        Camera2Enumerator camera2Enumerator = new Camera2Enumerator(context);
-        for (String cameraId : camera2Enumerator.getDeviceNames()) {
-            if (camera2Enumerator.isFrontFacing(cameraId)) {
-                frontCameraPair = new Pair<>(CameraCapturer.CameraSource.FRONT_CAMERA, cameraId);
-            }
-            if (camera2Enumerator.isBackFacing(cameraId)) {
-                backCameraPair = new Pair<>(CameraCapturer.CameraSource.BACK_CAMERA, cameraId);
-            }
+    /*
+     * Camera IDs come from the cached capabilities, so no Camera2 enumeration happens here
+     */
+    private void setCameraPairs(CameraCapabilities capabilities) {
+        if (capabilities.getFrontCameraId() != null) {
+            frontCameraPair = new Pair<>(CameraCapturer.CameraSource.FRONT_CAMERA, capabilities.getFrontCameraId());
+        }
+        if (capabilities.getBackCameraId() != null) {
+            backCameraPair = new Pair<>(CameraCapturer.CameraSource.BACK_CAMERA, capabilities.getBackCameraId());
         }
     }
 
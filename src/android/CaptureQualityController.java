@@ -0,0 +1,216 @@
+package org.apache.cordova.twiliovideo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.twilio.video.EncodingParameters;
+import com.twilio.video.LocalParticipant;
+import com.twilio.video.LocalVideoTrack;
+import com.twilio.video.VideoCapturer;
+import com.twilio.video.VideoConstraints;
+import com.twilio.video.VideoDimensions;
+import com.twilio.video.VideoRenderer;
+
+import java.util.Arrays;
+
+/*
+ * Follows the number of remote participants and moves local capture along the configured
+ * CaptureQualityLadder, capped by the active QualityProfile and the simulcast layer limit if
+ * there are any. Capture constraints are fixed when a LocalVideoTrack is created, so a change
+ * means replacing the published track. Tier changes are applied once the room size has settled,
+ * so a burst of joins only rebuilds the track once. Profile changes are applied immediately.
+ *
+ * Must be used on the main thread.
+ */
+public class CaptureQualityController {
+
+    public interface Listener {
+        void onCaptureConstraintsChanged(VideoConstraints constraints);
+    }
+
+    private static final long SETTLE_DELAY_MS = 1000;
+    private static final int DEFAULT_FPS = 30;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CaptureQualityLadder ladder;
+    private final Listener listener;
+    private CaptureQualityLadder.Tier currentTier;
+    private CaptureQualityLadder.Tier pendingTier;
+    private QualityProfile qualityProfile;
+    // Width and height that keep the VP8 simulcast encoder at the configured number of layers
+    private final int[] simulcastResolutionCap;
+    // Width, height and fps the local track was created with, null for the SDK defaults
+    private int[] appliedLimits;
+
+    private final Runnable applyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            currentTier = pendingTier;
+            applyLimits();
+        }
+    };
+
+    public CaptureQualityController(CallConfig config, Listener listener) {
+        this.ladder = config.getCaptureQualityLadder();
+        this.listener = listener;
+        this.qualityProfile = config.getQualityProfile();
+        this.simulcastResolutionCap = config.isSimulcast() ?
+                simulcastResolutionCap(config.getSimulcastMaxLayers()) : null;
+        this.currentTier = ladder.tierFor(0);
+        this.pendingTier = currentTier;
+        this.appliedLimits = captureLimits();
+    }
+
+    /*
+     * Constraints new local video tracks should be created with, or null for the SDK defaults
+     */
+    public VideoConstraints getCaptureConstraints() {
+        int[] limits = captureLimits();
+        if (limits == null) { return null; }
+        return new VideoConstraints.Builder()
+                .maxVideoDimensions(new VideoDimensions(limits[0], limits[1]))
+                .maxFps(limits[2])
+                .build();
+    }
+
+    /*
+     * Constraints for a track created before the call starts (e.g. by prepareRoom): the tier of
+     * an empty room, capped by the profile and simulcast limits of the given options
+     */
+    public static VideoConstraints getInitialCaptureConstraints(CallConfig config) {
+        return new CaptureQualityController(config, null).getCaptureConstraints();
+    }
+
+    /*
+     * The local track was created somewhere else (e.g. by prepareRoom). It is only replaced when
+     * its constraints differ from the ones this call needs, by the participant count reported
+     * once the room is connected.
+     */
+    public void onTrackCreatedWith(VideoConstraints constraints) {
+        appliedLimits = constraints == null ? null : new int[] {
+                constraints.getMaxVideoDimensions().width,
+                constraints.getMaxVideoDimensions().height,
+                constraints.getMaxFps()
+        };
+    }
+
+    public QualityProfile getQualityProfile() {
+        return qualityProfile;
+    }
+
+    public void setQualityProfile(QualityProfile qualityProfile) {
+        this.qualityProfile = qualityProfile;
+        applyLimits();
+    }
+
+    public void onParticipantCountChanged(int participantCount) {
+        // Also replaces a prepared track whose constraints do not match this call
+        pendingTier = ladder.tierFor(participantCount);
+        mainHandler.removeCallbacks(applyRunnable);
+        if (pendingTier != currentTier || !Arrays.equals(captureLimits(), appliedLimits)) {
+            mainHandler.postDelayed(applyRunnable, SETTLE_DELAY_MS);
+        }
+    }
+
+    public void release() {
+        mainHandler.removeCallbacks(applyRunnable);
+    }
+
+    private void applyLimits() {
+        int[] limits = captureLimits();
+        if (Arrays.equals(limits, appliedLimits)) { return; }
+        appliedLimits = limits;
+        listener.onCaptureConstraintsChanged(getCaptureConstraints());
+    }
+
+    /*
+     * The lowest of the current tier, the quality profile and the simulcast limits
+     */
+    private int[] captureLimits() {
+        int[] limits = null;
+        if (currentTier != null) {
+            limits = lower(limits, currentTier.getWidth(), currentTier.getHeight(), currentTier.getFps());
+        }
+        if (qualityProfile != null) {
+            limits = lower(limits, qualityProfile.getWidth(), qualityProfile.getHeight(), qualityProfile.getFps());
+        }
+        if (simulcastResolutionCap != null) {
+            limits = lower(limits, simulcastResolutionCap[0], simulcastResolutionCap[1], DEFAULT_FPS);
+        }
+        return limits;
+    }
+
+    private static int[] lower(int[] limits, int width, int height, int fps) {
+        if (limits == null) {
+            return new int[] { width, height, fps };
+        }
+        return new int[] {
+                Math.min(limits[0], width),
+                Math.min(limits[1], height),
+                Math.min(limits[2], fps)
+        };
+    }
+
+    /*
+     * WebRTC picks the number of VP8 simulcast layers from the input resolution: three from
+     * 960x540, two from 480x270 and one below. Returns null when no cap is needed.
+     */
+    private static int[] simulcastResolutionCap(int maxLayers) {
+        switch (maxLayers) {
+            case 1:
+                return new int[] { 320, 240 };
+            case 2:
+                return new int[] { 640, 480 };
+            default:
+                return null;
+        }
+    }
+
+    public static EncodingParameters toEncodingParameters(QualityProfile qualityProfile) {
+        return new EncodingParameters(qualityProfile.getMaxAudioBitrate(), qualityProfile.getMaxVideoBitrate());
+    }
+
+    public static LocalVideoTrack createLocalVideoTrack(Context context,
+                                                        boolean enabled,
+                                                        VideoCapturer videoCapturer,
+                                                        VideoConstraints constraints) {
+        if (constraints == null) {
+            return LocalVideoTrack.create(context, enabled, videoCapturer, TwilioVideoActivity.LOCAL_VIDEO_TRACK_NAME);
+        }
+        return LocalVideoTrack.create(context, enabled, videoCapturer, constraints, TwilioVideoActivity.LOCAL_VIDEO_TRACK_NAME);
+    }
+
+    /*
+     * Replaces a local video track by one capturing with the given constraints, keeping its
+     * enabled state, renderer and publication. Returns the new track.
+     */
+    public static LocalVideoTrack replaceLocalVideoTrack(Context context,
+                                                         LocalParticipant localParticipant,
+                                                         LocalVideoTrack oldTrack,
+                                                         VideoCapturer videoCapturer,
+                                                         VideoConstraints constraints,
+                                                         VideoRenderer renderer) {
+        boolean enabled = true;
+        if (oldTrack != null) {
+            enabled = oldTrack.isEnabled();
+            if (renderer != null) {
+                oldTrack.removeRenderer(renderer);
+            }
+            if (localParticipant != null) {
+                localParticipant.unpublishTrack(oldTrack);
+            }
+            oldTrack.release();
+        }
+
+        LocalVideoTrack newTrack = createLocalVideoTrack(context, enabled, videoCapturer, constraints);
+        if (newTrack == null) { return null; }
+        if (renderer != null) {
+            newTrack.addRenderer(renderer);
+        }
+        if (localParticipant != null) {
+            localParticipant.publishTrack(newTrack);
+        }
+        return newTrack;
+    }
+}
@@ -0,0 +1,103 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Local capture resolution and frame rate by room size. Each tier applies from its
+ * minParticipants (number of remote participants) up to the next tier. An empty ladder leaves
+ * capture at the SDK defaults.
+ */
+public class CaptureQualityLadder implements Serializable {
+
+    public static class Tier implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int minParticipants;
+        private final int width;
+        private final int height;
+        private final int fps;
+
+        public Tier(int minParticipants, int width, int height, int fps) {
+            this.minParticipants = minParticipants;
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+        }
+
+        public int getMinParticipants() {
+            return minParticipants;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getFps() {
+            return fps;
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    // Sorted by minParticipants
+    private final List<Tier> tiers;
+
+    private CaptureQualityLadder(List<Tier> tiers) {
+        this.tiers = tiers;
+    }
+
+    public static CaptureQualityLadder empty() {
+        return new CaptureQualityLadder(Collections.<Tier>emptyList());
+    }
+
+    /*
+     * [{minParticipants, width, height, fps}]. Incomplete tiers are skipped.
+     */
+    public static CaptureQualityLadder parse(JSONArray json) {
+        if (json == null) { return empty(); }
+        List<Tier> tiers = new ArrayList<>();
+        for (int i = 0; i < json.length(); i++) {
+            JSONObject tier = json.optJSONObject(i);
+            if (tier == null) { continue; }
+            int width = tier.optInt("width", 0);
+            int height = tier.optInt("height", 0);
+            int fps = tier.optInt("fps", 0);
+            if (width <= 0 || height <= 0 || fps <= 0) { continue; }
+            tiers.add(new Tier(Math.max(0, tier.optInt("minParticipants", 0)), width, height, fps));
+        }
+        Collections.sort(tiers, new Comparator<Tier>() {
+            @Override
+            public int compare(Tier a, Tier b) {
+                return a.minParticipants - b.minParticipants;
+            }
+        });
+        return new CaptureQualityLadder(tiers);
+    }
+
+    public boolean isEmpty() {
+        return tiers.isEmpty();
+    }
+
+    /*
+     * Tier for the given number of remote participants, or null if the ladder does not cover it
+     */
+    public Tier tierFor(int participantCount) {
+        Tier selected = null;
+        for (Tier tier : tiers) {
+            if (tier.minParticipants > participantCount) { break; }
+            selected = tier;
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,143 @@
+package org.apache.cordova.twiliovideo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Locale;
+
+/*
+ * Hardware H.264 and VP8 encoder and decoder availability. Walking MediaCodecList is slow, so,
+ * like CameraCapabilities, the result is kept in SharedPreferences and probed again only when
+ * the build fingerprint changes.
+ */
+public class CodecCapabilities {
+
+    private static final String PREFS_NAME = "TwilioVideoCodecCapabilities";
+    private static final String FINGERPRINT_KEY = "fingerprint";
+    private static final String CAPABILITIES_KEY = "capabilities";
+
+    private static final String H264_ENCODER_PROP = "h264Encoder";
+    private static final String H264_DECODER_PROP = "h264Decoder";
+    private static final String VP8_ENCODER_PROP = "vp8Encoder";
+    private static final String VP8_DECODER_PROP = "vp8Decoder";
+
+    private static final String H264_MIME_TYPE = "video/avc";
+    private static final String VP8_MIME_TYPE = "video/x-vnd.on2.vp8";
+
+    private static volatile CodecCapabilities instance;
+
+    private final boolean hardwareH264Encoder;
+    private final boolean hardwareH264Decoder;
+    private final boolean hardwareVp8Encoder;
+    private final boolean hardwareVp8Decoder;
+
+    private CodecCapabilities(JSONObject json) {
+        this.hardwareH264Encoder = json.optBoolean(H264_ENCODER_PROP, false);
+        this.hardwareH264Decoder = json.optBoolean(H264_DECODER_PROP, false);
+        this.hardwareVp8Encoder = json.optBoolean(VP8_ENCODER_PROP, false);
+        this.hardwareVp8Decoder = json.optBoolean(VP8_DECODER_PROP, false);
+    }
+
+    public static CodecCapabilities get(Context context) {
+        CodecCapabilities capabilities = instance;
+        if (capabilities != null) {
+            return capabilities;
+        }
+        synchronized (CodecCapabilities.class) {
+            if (instance == null) {
+                instance = load(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    public boolean hasHardwareH264Encoder() {
+        return hardwareH264Encoder;
+    }
+
+    public boolean hasHardwareH264Decoder() {
+        return hardwareH264Decoder;
+    }
+
+    public boolean hasHardwareVp8Encoder() {
+        return hardwareVp8Encoder;
+    }
+
+    public boolean hasHardwareVp8Decoder() {
+        return hardwareVp8Decoder;
+    }
+
+    /*
+     * H.264 is only worth preferring when it can be encoded in hardware and VP8 cannot. VP8 always
+     * has a software fallback, so it stays first otherwise.
+     */
+    public boolean prefersH264() {
+        return hardwareH264Encoder && hardwareH264Decoder && !hardwareVp8Encoder;
+    }
+
+    private static CodecCapabilities load(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (Build.FINGERPRINT.equals(preferences.getString(FINGERPRINT_KEY, null))) {
+            try {
+                return new CodecCapabilities(new JSONObject(preferences.getString(CAPABILITIES_KEY, "")));
+            } catch (JSONException e) {
+                Log.w(TwilioVideo.TAG, "Stored codec capabilities are not valid, probing them again");
+            }
+        }
+
+        JSONObject probed = probe();
+        preferences.edit()
+                .putString(FINGERPRINT_KEY, Build.FINGERPRINT)
+                .putString(CAPABILITIES_KEY, probed.toString())
+                .apply();
+        return new CodecCapabilities(probed);
+    }
+
+    private static JSONObject probe() {
+        boolean h264Encoder = false;
+        boolean h264Decoder = false;
+        boolean vp8Encoder = false;
+        boolean vp8Decoder = false;
+
+        MediaCodecInfo[] codecInfos = new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos();
+        for (MediaCodecInfo codecInfo : codecInfos) {
+            if (!isHardwareAccelerated(codecInfo)) { continue; }
+            for (String type : codecInfo.getSupportedTypes()) {
+                if (H264_MIME_TYPE.equalsIgnoreCase(type)) {
+                    if (codecInfo.isEncoder()) { h264Encoder = true; } else { h264Decoder = true; }
+                } else if (VP8_MIME_TYPE.equalsIgnoreCase(type)) {
+                    if (codecInfo.isEncoder()) { vp8Encoder = true; } else { vp8Decoder = true; }
+                }
+            }
+        }
+
+        JSONObject json = new JSONObject();
+        try {
+            json.put(H264_ENCODER_PROP, h264Encoder);
+            json.put(H264_DECODER_PROP, h264Decoder);
+            json.put(VP8_ENCODER_PROP, vp8Encoder);
+            json.put(VP8_DECODER_PROP, vp8Decoder);
+        } catch (JSONException e) {
+            Log.e(TwilioVideo.TAG, "Error storing codec capabilities");
+        }
+        return json;
+    }
+
+    private static boolean isHardwareAccelerated(MediaCodecInfo codecInfo) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return codecInfo.isHardwareAccelerated();
+        }
+        // Software codecs shipped with the platform
+        String name = codecInfo.getName().toLowerCase(Locale.ROOT);
+        return !name.startsWith("omx.google.")
+                && !name.startsWith("c2.android.")
+                && !name.contains(".sw.");
+    }
+}
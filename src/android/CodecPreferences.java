@@ -0,0 +1,106 @@
+package org.apache.cordova.twiliovideo;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.twilio.video.AudioCodec;
+import com.twilio.video.G722Codec;
+import com.twilio.video.H264Codec;
+import com.twilio.video.IsacCodec;
+import com.twilio.video.OpusCodec;
+import com.twilio.video.PcmaCodec;
+import com.twilio.video.PcmuCodec;
+import com.twilio.video.VideoCodec;
+import com.twilio.video.Vp8Codec;
+import com.twilio.video.Vp9Codec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Codec preference order for ConnectOptions. The CallConfig lists win; otherwise the video order
+ * is picked from the hardware codecs found by CodecCapabilities and audio is left to the SDK.
+ * Simulcast is only supported by VP8, so it always goes first when simulcast is enabled.
+ */
+public class CodecPreferences {
+
+    private CodecPreferences() {
+    }
+
+    public static List<VideoCodec> videoCodecs(Context context, CallConfig config) {
+        List<VideoCodec> codecs = new ArrayList<>();
+        if (config.isSimulcast()) {
+            codecs.add(new Vp8Codec(true));
+        }
+        String[] names = config.getPreferredVideoCodecs();
+        if (names != null) {
+            for (String name : names) {
+                VideoCodec codec = toVideoCodec(name);
+                if (codec != null && !(config.isSimulcast() && codec instanceof Vp8Codec)) {
+                    codecs.add(codec);
+                }
+            }
+            if (!codecs.isEmpty()) { return codecs; }
+        }
+
+        if (config.isSimulcast()) {
+            codecs.add(new H264Codec());
+        } else if (CodecCapabilities.get(context).prefersH264()) {
+            codecs.add(new H264Codec());
+            codecs.add(new Vp8Codec());
+        } else {
+            codecs.add(new Vp8Codec());
+            codecs.add(new H264Codec());
+        }
+        return codecs;
+    }
+
+    /*
+     * Null when the SDK default order should be kept
+     */
+    public static List<AudioCodec> audioCodecs(CallConfig config) {
+        String[] names = config.getPreferredAudioCodecs();
+        if (names == null) { return null; }
+        List<AudioCodec> codecs = new ArrayList<>();
+        for (String name : names) {
+            AudioCodec codec = toAudioCodec(name);
+            if (codec != null) {
+                codecs.add(codec);
+            }
+        }
+        return codecs.isEmpty() ? null : codecs;
+    }
+
+    private static VideoCodec toVideoCodec(String name) {
+        switch (name.toUpperCase(Locale.ROOT)) {
+            case "H264":
+                return new H264Codec();
+            case "VP8":
+                return new Vp8Codec();
+            case "VP9":
+                return new Vp9Codec();
+            default:
+                Log.w(TwilioVideo.TAG, "Unknown video codec: " + name);
+                return null;
+        }
+    }
+
+    private static AudioCodec toAudioCodec(String name) {
+        switch (name.toUpperCase(Locale.ROOT)) {
+            case "OPUS":
+                return new OpusCodec();
+            case "ISAC":
+                return new IsacCodec();
+            case "PCMA":
+                return new PcmaCodec();
+            case "PCMU":
+                return new PcmuCodec();
+            case "G722":
+                return new G722Codec();
+            default:
+                Log.w(TwilioVideo.TAG, "Unknown audio codec: " + name);
+                return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Keeps the N most recently active participants visible. Participants joining a full set wait
+ * hidden until they speak, so churn in a large room does not evict anyone. A hidden participant
+ * that becomes active takes the place of the least recently active visible one, and when a
+ * visible participant leaves the most recently active hidden one takes their place. Each change
+ * is reported as it happens, nothing is recomputed from scratch.
+ *
+ * A limit of 0 or less keeps everyone visible. Not thread safe.
+ */
+public class LastNPolicy {
+
+    public interface Listener {
+        void onVisibilityChanged(String participantSid, boolean visible);
+    }
+
+    private final int lastN;
+    // Participant SID -> last activity, 0 when never active, in join order
+    private final Map<String, Long> activity = new LinkedHashMap<>();
+    private final Set<String> visible = new LinkedHashSet<>();
+    private long clock;
+
+    public LastNPolicy(int lastN) {
+        this.lastN = lastN;
+    }
+
+    public void add(String participantSid) {
+        if (activity.containsKey(participantSid)) { return; }
+        activity.put(participantSid, 0L);
+        if (lastN <= 0 || visible.size() < lastN) {
+            visible.add(participantSid);
+        }
+    }
+
+    public void remove(String participantSid, Listener listener) {
+        if (activity.remove(participantSid) == null) { return; }
+        if (!visible.remove(participantSid)) { return; }
+        String revealedSid = findHidden();
+        if (revealedSid != null) {
+            visible.add(revealedSid);
+            listener.onVisibilityChanged(revealedSid, true);
+        }
+    }
+
+    /*
+     * Marks the participant as the most recently active one
+     */
+    public void touch(String participantSid, Listener listener) {
+        if (!activity.containsKey(participantSid)) { return; }
+        activity.put(participantSid, ++clock);
+        if (visible.contains(participantSid)) { return; }
+        String hiddenSid = findLeastRecentVisible();
+        visible.remove(hiddenSid);
+        visible.add(participantSid);
+        listener.onVisibilityChanged(hiddenSid, false);
+        listener.onVisibilityChanged(participantSid, true);
+    }
+
+    public boolean isVisible(String participantSid) {
+        return lastN <= 0 || visible.contains(participantSid);
+    }
+
+    public int getLastN() {
+        return lastN;
+    }
+
+    public void clear() {
+        activity.clear();
+        visible.clear();
+    }
+
+    /*
+     * Walks the N visible participants only when a hidden one has to be revealed
+     */
+    private String findLeastRecentVisible() {
+        String leastSid = null;
+        long leastActivity = Long.MAX_VALUE;
+        for (String participantSid : visible) {
+            long lastActivity = activity.get(participantSid);
+            if (lastActivity < leastActivity) {
+                leastSid = participantSid;
+                leastActivity = lastActivity;
+            }
+        }
+        return leastSid;
+    }
+
+    /*
+     * Most recently active hidden participant, the first one to join among the never active ones
+     */
+    private String findHidden() {
+        String hiddenSid = null;
+        long mostActivity = -1;
+        for (Map.Entry<String, Long> entry : activity.entrySet()) {
+            if (visible.contains(entry.getKey())) { continue; }
+            if (entry.getValue() > mostActivity) {
+                hiddenSid = entry.getKey();
+                mostActivity = entry.getValue();
+            }
+        }
+        return hiddenSid;
+    }
+}
@@ -0,0 +1,131 @@
+package org.apache.cordova.twiliovideo;
+
+import com.twilio.video.RemoteAudioTrack;
+import com.twilio.video.RemoteParticipant;
+import com.twilio.video.RemoteVideoTrack;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Remote participants and their subscribed tracks indexed by SID. Lookups, inserts and removals
+ * are constant time and iteration follows join/subscription order.
+ */
+public class ParticipantRegistry {
+
+    private final Map<String, RemoteParticipant> participants = new LinkedHashMap<>();
+    private final Map<String, RemoteVideoTrack> videoTracks = new LinkedHashMap<>();
+    private final Map<String, RemoteAudioTrack> audioTracks = new LinkedHashMap<>();
+    // Track SID -> participant SID
+    private final Map<String, String> trackOwners = new HashMap<>();
+    // Participant SID -> SIDs of its subscribed tracks
+    private final Map<String, Set<String>> participantTracks = new HashMap<>();
+
+    public void addParticipant(RemoteParticipant participant) {
+        participants.put(participant.getSid(), participant);
+        if (!participantTracks.containsKey(participant.getSid())) {
+            participantTracks.put(participant.getSid(), new LinkedHashSet<String>());
+        }
+    }
+
+    /*
+     * Removes the participant together with any track that is still registered for it
+     */
+    public RemoteParticipant removeParticipant(String participantSid) {
+        Set<String> trackSids = participantTracks.remove(participantSid);
+        if (trackSids != null) {
+            for (String trackSid : trackSids) {
+                videoTracks.remove(trackSid);
+                audioTracks.remove(trackSid);
+                trackOwners.remove(trackSid);
+            }
+        }
+        return participants.remove(participantSid);
+    }
+
+    public RemoteParticipant getParticipant(String participantSid) {
+        return participants.get(participantSid);
+    }
+
+    public boolean hasParticipant(String participantSid) {
+        return participants.containsKey(participantSid);
+    }
+
+    public Collection<RemoteParticipant> getParticipants() {
+        return Collections.unmodifiableCollection(participants.values());
+    }
+
+    public int getParticipantCount() {
+        return participants.size();
+    }
+
+    public void addVideoTrack(String participantSid, RemoteVideoTrack track) {
+        videoTracks.put(track.getSid(), track);
+        registerTrack(participantSid, track.getSid());
+    }
+
+    public RemoteVideoTrack removeVideoTrack(String trackSid) {
+        unregisterTrack(trackSid);
+        return videoTracks.remove(trackSid);
+    }
+
+    public RemoteVideoTrack getVideoTrack(String trackSid) {
+        return videoTracks.get(trackSid);
+    }
+
+    public Collection<RemoteVideoTrack> getVideoTracks() {
+        return Collections.unmodifiableCollection(videoTracks.values());
+    }
+
+    public void addAudioTrack(String participantSid, RemoteAudioTrack track) {
+        audioTracks.put(track.getSid(), track);
+        registerTrack(participantSid, track.getSid());
+    }
+
+    public RemoteAudioTrack removeAudioTrack(String trackSid) {
+        unregisterTrack(trackSid);
+        return audioTracks.remove(trackSid);
+    }
+
+    public RemoteAudioTrack getAudioTrack(String trackSid) {
+        return audioTracks.get(trackSid);
+    }
+
+    public Collection<RemoteAudioTrack> getAudioTracks() {
+        return Collections.unmodifiableCollection(audioTracks.values());
+    }
+
+    public String getTrackOwner(String trackSid) {
+        return trackOwners.get(trackSid);
+    }
+
+    public void clear() {
+        participants.clear();
+        videoTracks.clear();
+        audioTracks.clear();
+        trackOwners.clear();
+        participantTracks.clear();
+    }
+
+    private void registerTrack(String participantSid, String trackSid) {
+        trackOwners.put(trackSid, participantSid);
+        Set<String> trackSids = participantTracks.get(participantSid);
+        if (trackSids != null) {
+            trackSids.add(trackSid);
+        }
+    }
+
+    private void unregisterTrack(String trackSid) {
+        String participantSid = trackOwners.remove(trackSid);
+        if (participantSid == null) { return; }
+        Set<String> trackSids = participantTracks.get(participantSid);
+        if (trackSids != null) {
+            trackSids.remove(trackSid);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.apache.cordova.twiliovideo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.twilio.video.LocalAudioTrack;
+import com.twilio.video.LocalVideoTrack;
+import com.twilio.video.VideoConstraints;
+
+/*
+ * Camera capturer and local tracks built ahead of openRoom (e.g. while a lobby screen is shown)
+ * so the call activity can adopt them instead of opening the camera and the audio device itself.
+ * A prepared session that is not adopted within its idle timeout is released.
+ */
+public class PreparedLocalMedia {
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static PreparedLocalMedia prepared;
+
+    private static final Runnable idleTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Log.i(TwilioVideo.TAG, "Prepared local media was not used, releasing it");
+            release();
+        }
+    };
+
+    private final CameraCapturerCompat cameraCapturer;
+    private final LocalAudioTrack localAudioTrack;
+    private final LocalVideoTrack localVideoTrack;
+    private final VideoConstraints captureConstraints;
+
+    private PreparedLocalMedia(Context context, VideoConstraints captureConstraints) {
+        this.captureConstraints = captureConstraints;
+        localAudioTrack = LocalAudioTrack.create(context, true, TwilioVideoActivity.LOCAL_AUDIO_TRACK_NAME);
+        cameraCapturer = new CameraCapturerCompat(context, TwilioVideoActivity.getAvailableCameraSource(context));
+        localVideoTrack = CaptureQualityController.createLocalVideoTrack(context,
+                true,
+                cameraCapturer.getVideoCapturer(),
+                captureConstraints);
+    }
+
+    /*
+     * Must be called on the main thread. The video track starts at the capture tier openRoom will
+     * use with the same options. Preparing again while a session is held only restarts its idle
+     * timeout.
+     */
+    public static synchronized void prepare(Context context, CallConfig config) {
+        if (prepared == null) {
+            prepared = new PreparedLocalMedia(context.getApplicationContext(),
+                    CaptureQualityController.getInitialCaptureConstraints(config));
+        }
+        mainHandler.removeCallbacks(idleTimeoutRunnable);
+        mainHandler.postDelayed(idleTimeoutRunnable, config.getPrepareIdleTimeoutMs());
+    }
+
+    /*
+     * Hands the prepared session over to the caller, who becomes responsible for releasing it.
+     * Returns null if nothing was prepared.
+     */
+    public static synchronized PreparedLocalMedia take() {
+        mainHandler.removeCallbacks(idleTimeoutRunnable);
+        PreparedLocalMedia media = prepared;
+        prepared = null;
+        return media;
+    }
+
+    public static synchronized void release() {
+        mainHandler.removeCallbacks(idleTimeoutRunnable);
+        if (prepared == null) { return; }
+        if (prepared.localAudioTrack != null) {
+            prepared.localAudioTrack.release();
+        }
+        if (prepared.localVideoTrack != null) {
+            prepared.localVideoTrack.release();
+        }
+        prepared = null;
+    }
+
+    public CameraCapturerCompat getCameraCapturer() {
+        return cameraCapturer;
+    }
+
+    public LocalAudioTrack getLocalAudioTrack() {
+        return localAudioTrack;
+    }
+
+    public LocalVideoTrack getLocalVideoTrack() {
+        return localVideoTrack;
+    }
+
+    /*
+     * Constraints the video track was created with, null for the SDK defaults
+     */
+    public VideoConstraints getCaptureConstraints() {
+        return captureConstraints;
+    }
+}
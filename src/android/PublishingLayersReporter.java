@@ -0,0 +1,98 @@
+package org.apache.cordova.twiliovideo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.twilio.video.LocalVideoTrackStats;
+import com.twilio.video.Room;
+import com.twilio.video.StatsListener;
+import com.twilio.video.StatsReport;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/*
+ * Publishes a PUBLISHING_LAYERS event whenever the set of local video encodings that are
+ * actually sending changes, e.g. when the simulcast encoder drops its top layer on a weak uplink.
+ * Each reported layer is one LocalVideoTrackStats entry with a non zero frame rate. The reporter
+ * polls the room itself unless it is fed by the StatsSampler.
+ */
+public class PublishingLayersReporter implements StatsSampler.ReportsListener {
+
+    private static final long POLL_INTERVAL_MS = 5000;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile Room room;
+    // Track SIDs and dimensions of the last reported layers
+    private String lastSignature;
+
+    private final StatsListener statsListener = new StatsListener() {
+        @Override
+        public void onStats(List<StatsReport> statsReports) {
+            onStatsReports(statsReports);
+        }
+    };
+
+    private final Runnable pollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Room currentRoom = room;
+            if (currentRoom == null) { return; }
+            currentRoom.getStats(statsListener);
+            mainHandler.postDelayed(this, POLL_INTERVAL_MS);
+        }
+    };
+
+    /*
+     * Must be called on the main thread. With poll false, reports are expected through
+     * onStatsReports.
+     */
+    public synchronized void start(Room room, boolean poll) {
+        this.room = room;
+        mainHandler.removeCallbacks(pollRunnable);
+        if (poll) {
+            mainHandler.postDelayed(pollRunnable, POLL_INTERVAL_MS);
+        }
+    }
+
+    public synchronized void stop() {
+        mainHandler.removeCallbacks(pollRunnable);
+        room = null;
+        lastSignature = null;
+    }
+
+    @Override
+    public synchronized void onStatsReports(List<StatsReport> statsReports) {
+        if (room == null) { return; }
+        StringBuilder signature = new StringBuilder();
+        JSONArray layers = new JSONArray();
+        try {
+            for (StatsReport report : statsReports) {
+                for (LocalVideoTrackStats stats : report.getLocalVideoTrackStats()) {
+                    if (stats.frameRate <= 0 || stats.dimensions == null) { continue; }
+                    signature.append(stats.trackSid).append(':')
+                            .append(stats.dimensions.width).append('x').append(stats.dimensions.height).append(';');
+                    JSONObject layer = new JSONObject();
+                    layer.put("trackSid", stats.trackSid);
+                    layer.put("width", stats.dimensions.width);
+                    layer.put("height", stats.dimensions.height);
+                    layer.put("frameRate", stats.frameRate);
+                    layers.put(layer);
+                }
+            }
+            if (signature.toString().equals(lastSignature)) { return; }
+            lastSignature = signature.toString();
+
+            JSONObject data = new JSONObject();
+            data.put("layerCount", layers.length());
+            data.put("layers", layers);
+            TwilioVideoManager.getInstance().publishEvent(CallEvent.PUBLISHING_LAYERS, data);
+        } catch (JSONException e) {
+            Log.e(TwilioVideo.TAG, "Error building publishing layers event data");
+        }
+    }
+}
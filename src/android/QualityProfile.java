@@ -0,0 +1,59 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.Locale;
+
+/*
+ * Named sets of encoder bitrates and capture limits. Bitrates are in bits per second.
+ */
+public enum QualityProfile {
+    LOW_BANDWIDTH(16000, 150000, 320, 240, 15),
+    BALANCED(32000, 600000, 640, 480, 24),
+    HD(48000, 1500000, 1280, 720, 30);
+
+    private final int maxAudioBitrate;
+    private final int maxVideoBitrate;
+    private final int width;
+    private final int height;
+    private final int fps;
+
+    QualityProfile(int maxAudioBitrate, int maxVideoBitrate, int width, int height, int fps) {
+        this.maxAudioBitrate = maxAudioBitrate;
+        this.maxVideoBitrate = maxVideoBitrate;
+        this.width = width;
+        this.height = height;
+        this.fps = fps;
+    }
+
+    /*
+     * Accepts "low_bandwidth", "low-bandwidth", "balanced" and "hd" in any case. Returns null for
+     * unknown names.
+     */
+    public static QualityProfile fromName(String name) {
+        if (name == null) { return null; }
+        try {
+            return valueOf(name.replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public int getMaxAudioBitrate() {
+        return maxAudioBitrate;
+    }
+
+    public int getMaxVideoBitrate() {
+        return maxVideoBitrate;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getFps() {
+        return fps;
+    }
+}
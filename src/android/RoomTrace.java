@@ -0,0 +1,31 @@
+package org.apache.cordova.twiliovideo;
+
+/*
+ * Binary layout of a room trace: a header with MAGIC and VERSION, then one record per callback:
+ * opcode byte, varint microseconds since the previous record, then the arguments. Strings are a
+ * varint index in the table of strings seen so far; the next free index is followed by the new
+ * string in modified UTF-8. Booleans are one byte, string lists a varint count and the strings.
+ *
+ * From version 2 the header continues with the options that change how the session handles the
+ * callbacks: lastN, audioPlaybackLimit and audioPlaybackHoldMs as varints and dominantSpeaker.
+ */
+final class RoomTrace {
+
+    static final int MAGIC = 0x54565254;
+    static final int VERSION = 2;
+
+    static final int OP_CONNECTED = 1;
+    static final int OP_DISCONNECTED = 2;
+    static final int OP_PARTICIPANT_CONNECTED = 3;
+    static final int OP_PARTICIPANT_DISCONNECTED = 4;
+    static final int OP_AUDIO_TRACK_SUBSCRIBED = 5;
+    static final int OP_AUDIO_TRACK_UNSUBSCRIBED = 6;
+    static final int OP_VIDEO_TRACK_SUBSCRIBED = 7;
+    static final int OP_VIDEO_TRACK_UNSUBSCRIBED = 8;
+    static final int OP_VIDEO_TRACK_ENABLED_CHANGED = 9;
+    static final int OP_SPEECH_DETECTED = 10;
+    static final int OP_DOMINANT_SPEAKER_CHANGED = 11;
+
+    private RoomTrace() {
+    }
+}
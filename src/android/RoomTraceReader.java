@@ -0,0 +1,233 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Reads a trace written by RoomTraceRecorder one record at a time. Decoding and dispatching are
+ * separate steps so a replayer can time the listener alone. Version 1 traces have no options in
+ * the header and replay with the defaults.
+ *
+ *     while (reader.next()) {
+ *         reader.dispatch(listener);
+ *     }
+ */
+public class RoomTraceReader {
+
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+    private final CallConfig callConfig = new CallConfig();
+
+    private int opcode;
+    private long timestampMicros;
+    private String participantSid;
+    private String trackSid;
+    private String value;
+    private boolean enabled;
+    private List<String> trackSids;
+
+    public RoomTraceReader(InputStream stream) throws IOException {
+        this.in = new DataInputStream(stream);
+        if (in.readInt() != RoomTrace.MAGIC) {
+            throw new IOException("Not a room trace");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > RoomTrace.VERSION) {
+            throw new IOException("Unsupported room trace version " + version);
+        }
+        if (version >= 2) {
+            readCallConfig();
+        }
+    }
+
+    /*
+     * Decodes the next record, returns false at the end of the trace
+     */
+    public boolean next() throws IOException {
+        int read = in.read();
+        if (read < 0) { return false; }
+        opcode = read;
+        timestampMicros += readVarInt();
+        participantSid = null;
+        trackSid = null;
+        value = null;
+        switch (opcode) {
+            case RoomTrace.OP_CONNECTED:
+            case RoomTrace.OP_DISCONNECTED:
+                break;
+            case RoomTrace.OP_PARTICIPANT_CONNECTED:
+                participantSid = readString();
+                value = readString();
+                break;
+            case RoomTrace.OP_PARTICIPANT_DISCONNECTED:
+                participantSid = readString();
+                break;
+            case RoomTrace.OP_AUDIO_TRACK_SUBSCRIBED:
+                participantSid = readString();
+                trackSid = readString();
+                value = readString();
+                break;
+            case RoomTrace.OP_AUDIO_TRACK_UNSUBSCRIBED:
+            case RoomTrace.OP_VIDEO_TRACK_UNSUBSCRIBED:
+                participantSid = readString();
+                trackSid = readString();
+                break;
+            case RoomTrace.OP_VIDEO_TRACK_SUBSCRIBED:
+                participantSid = readString();
+                trackSid = readString();
+                value = readString();
+                enabled = in.readBoolean();
+                break;
+            case RoomTrace.OP_VIDEO_TRACK_ENABLED_CHANGED:
+                participantSid = readString();
+                trackSid = readString();
+                enabled = in.readBoolean();
+                break;
+            case RoomTrace.OP_SPEECH_DETECTED:
+                int count = (int) readVarInt();
+                trackSids = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    trackSids.add(readString());
+                }
+                break;
+            case RoomTrace.OP_DOMINANT_SPEAKER_CHANGED:
+                trackSid = readString();
+                break;
+            default:
+                throw new IOException("Unknown room trace opcode " + opcode);
+        }
+        return true;
+    }
+
+    /*
+     * Calls the listener method of the current record
+     */
+    public void dispatch(CallRoomListener listener) {
+        switch (opcode) {
+            case RoomTrace.OP_CONNECTED:
+                listener.onConnected();
+                break;
+            case RoomTrace.OP_DISCONNECTED:
+                listener.onDisconnected();
+                break;
+            case RoomTrace.OP_PARTICIPANT_CONNECTED:
+                listener.onParticipantConnected(participantSid, value);
+                break;
+            case RoomTrace.OP_PARTICIPANT_DISCONNECTED:
+                listener.onParticipantDisconnected(participantSid);
+                break;
+            case RoomTrace.OP_AUDIO_TRACK_SUBSCRIBED:
+                listener.onAudioTrackSubscribed(participantSid, trackSid, value);
+                break;
+            case RoomTrace.OP_AUDIO_TRACK_UNSUBSCRIBED:
+                listener.onAudioTrackUnsubscribed(participantSid, trackSid);
+                break;
+            case RoomTrace.OP_VIDEO_TRACK_SUBSCRIBED:
+                listener.onVideoTrackSubscribed(participantSid, trackSid, value, enabled);
+                break;
+            case RoomTrace.OP_VIDEO_TRACK_UNSUBSCRIBED:
+                listener.onVideoTrackUnsubscribed(participantSid, trackSid);
+                break;
+            case RoomTrace.OP_VIDEO_TRACK_ENABLED_CHANGED:
+                listener.onVideoTrackEnabledChanged(participantSid, trackSid, enabled);
+                break;
+            case RoomTrace.OP_SPEECH_DETECTED:
+                listener.onSpeechDetected(trackSids, timestampMicros / 1000);
+                break;
+            case RoomTrace.OP_DOMINANT_SPEAKER_CHANGED:
+                listener.onDominantSpeakerChanged(trackSid);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /*
+     * Short name of the current record, for reports
+     */
+    public String getEventName() {
+        switch (opcode) {
+            case RoomTrace.OP_CONNECTED:
+                return "connected";
+            case RoomTrace.OP_DISCONNECTED:
+                return "disconnected";
+            case RoomTrace.OP_PARTICIPANT_CONNECTED:
+                return "participantConnected";
+            case RoomTrace.OP_PARTICIPANT_DISCONNECTED:
+                return "participantDisconnected";
+            case RoomTrace.OP_AUDIO_TRACK_SUBSCRIBED:
+                return "audioTrackSubscribed";
+            case RoomTrace.OP_AUDIO_TRACK_UNSUBSCRIBED:
+                return "audioTrackUnsubscribed";
+            case RoomTrace.OP_VIDEO_TRACK_SUBSCRIBED:
+                return "videoTrackSubscribed";
+            case RoomTrace.OP_VIDEO_TRACK_UNSUBSCRIBED:
+                return "videoTrackUnsubscribed";
+            case RoomTrace.OP_VIDEO_TRACK_ENABLED_CHANGED:
+                return "videoTrackEnabledChanged";
+            case RoomTrace.OP_SPEECH_DETECTED:
+                return "speechDetected";
+            default:
+                return "dominantSpeakerChanged";
+        }
+    }
+
+    /*
+     * Options of the recorded call, for the session the trace is replayed into
+     */
+    public CallConfig getCallConfig() {
+        return callConfig;
+    }
+
+    /*
+     * Microseconds since the recorder was created
+     */
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    private void readCallConfig() throws IOException {
+        JSONObject config = new JSONObject();
+        try {
+            config.put("lastN", readVarInt());
+            config.put("audioPlaybackLimit", readVarInt());
+            config.put("audioPlaybackHoldMs", readVarInt());
+            config.put("dominantSpeaker", in.readBoolean());
+        } catch (JSONException e) {
+            // Not thrown for numbers and booleans
+        }
+        callConfig.parse(config);
+    }
+
+    private String readString() throws IOException {
+        int index = (int) readVarInt();
+        if (index < strings.size()) {
+            return strings.get(index);
+        }
+        if (index != strings.size()) {
+            throw new IOException("Bad room trace string index " + index);
+        }
+        String string = in.readUTF();
+        strings.add(string);
+        return string;
+    }
+
+    private long readVarInt() throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int read = in.read();
+            if (read < 0) { throw new EOFException(); }
+            value |= (long) (read & 0x7F) << shift;
+            if ((read & 0x80) == 0) { return value; }
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.apache.cordova.twiliovideo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Records the room callbacks going to a CallRoomListener, then forwards them. Strings are interned
+ * on first use, see RoomTrace, so a join usually takes a few dozen bytes. The trace is kept in memory,
+ * up to a limit, and written to the file off the calling thread when the room disconnects.
+ * RoomTraceReader plays it back.
+ */
+public class RoomTraceRecorder implements CallRoomListener {
+
+    public static final String FILE_NAME = "twilio-video-room.trace";
+
+    private static final int LIMIT_BYTES = 1 << 20;
+
+    private final CallRoomListener delegate;
+    private final File file;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    private final Map<String, Integer> strings = new HashMap<>();
+    private long lastNanos;
+    private boolean full;
+
+    /*
+     * The options the delegate session was built with go in the header, so the trace replays
+     * through the same policies
+     */
+    public RoomTraceRecorder(CallRoomListener delegate, File file, CallConfig config) {
+        this.delegate = delegate;
+        this.file = file;
+        try {
+            out.writeInt(RoomTrace.MAGIC);
+            out.writeByte(RoomTrace.VERSION);
+        } catch (IOException e) {
+            // Not thrown by in-memory streams
+        }
+        writeVarInt(config.getLastN());
+        writeVarInt(config.getAudioPlaybackLimit());
+        writeVarInt(config.getAudioPlaybackHoldMs());
+        writeBoolean(config.isDominantSpeaker());
+        lastNanos = System.nanoTime();
+    }
+
+    @Override
+    public void onConnected() {
+        start(RoomTrace.OP_CONNECTED);
+        delegate.onConnected();
+    }
+
+    @Override
+    public void onDisconnected() {
+        start(RoomTrace.OP_DISCONNECTED);
+        delegate.onDisconnected();
+        save();
+    }
+
+    @Override
+    public void onParticipantConnected(String participantSid, String identity) {
+        if (start(RoomTrace.OP_PARTICIPANT_CONNECTED)) {
+            writeString(participantSid);
+            writeString(identity);
+        }
+        delegate.onParticipantConnected(participantSid, identity);
+    }
+
+    @Override
+    public void onParticipantDisconnected(String participantSid) {
+        if (start(RoomTrace.OP_PARTICIPANT_DISCONNECTED)) {
+            writeString(participantSid);
+        }
+        delegate.onParticipantDisconnected(participantSid);
+    }
+
+    @Override
+    public void onAudioTrackSubscribed(String participantSid, String trackSid, String trackName) {
+        if (start(RoomTrace.OP_AUDIO_TRACK_SUBSCRIBED)) {
+            writeString(participantSid);
+            writeString(trackSid);
+            writeString(trackName);
+        }
+        delegate.onAudioTrackSubscribed(participantSid, trackSid, trackName);
+    }
+
+    @Override
+    public void onAudioTrackUnsubscribed(String participantSid, String trackSid) {
+        if (start(RoomTrace.OP_AUDIO_TRACK_UNSUBSCRIBED)) {
+            writeString(participantSid);
+            writeString(trackSid);
+        }
+        delegate.onAudioTrackUnsubscribed(participantSid, trackSid);
+    }
+
+    @Override
+    public void onVideoTrackSubscribed(String participantSid, String trackSid, String trackName, boolean enabled) {
+        if (start(RoomTrace.OP_VIDEO_TRACK_SUBSCRIBED)) {
+            writeString(participantSid);
+            writeString(trackSid);
+            writeString(trackName);
+            writeBoolean(enabled);
+        }
+        delegate.onVideoTrackSubscribed(participantSid, trackSid, trackName, enabled);
+    }
+
+    @Override
+    public void onVideoTrackUnsubscribed(String participantSid, String trackSid) {
+        if (start(RoomTrace.OP_VIDEO_TRACK_UNSUBSCRIBED)) {
+            writeString(participantSid);
+            writeString(trackSid);
+        }
+        delegate.onVideoTrackUnsubscribed(participantSid, trackSid);
+    }
+
+    @Override
+    public void onVideoTrackEnabledChanged(String participantSid, String trackSid, boolean enabled) {
+        if (start(RoomTrace.OP_VIDEO_TRACK_ENABLED_CHANGED)) {
+            writeString(participantSid);
+            writeString(trackSid);
+            writeBoolean(enabled);
+        }
+        delegate.onVideoTrackEnabledChanged(participantSid, trackSid, enabled);
+    }
+
+    @Override
+    public void onSpeechDetected(List<String> audioTrackSids, long nowMs) {
+        if (start(RoomTrace.OP_SPEECH_DETECTED)) {
+            writeVarInt(audioTrackSids.size());
+            for (String audioTrackSid : audioTrackSids) {
+                writeString(audioTrackSid);
+            }
+        }
+        delegate.onSpeechDetected(audioTrackSids, nowMs);
+    }
+
+    @Override
+    public void onDominantSpeakerChanged(String audioTrackSid) {
+        if (start(RoomTrace.OP_DOMINANT_SPEAKER_CHANGED)) {
+            writeString(audioTrackSid);
+        }
+        delegate.onDominantSpeakerChanged(audioTrackSid);
+    }
+
+    /*
+     * Writes what was recorded so far to the file off the calling thread
+     */
+    public void save() {
+        final byte[] trace = buffer.toByteArray();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                OutputStream stream = null;
+                try {
+                    stream = new FileOutputStream(file, false);
+                    stream.write(trace);
+                } catch (IOException e) {
+                    CallLog.e("Error saving room trace").add("message", e.getMessage()).log();
+                } finally {
+                    if (stream != null) {
+                        try {
+                            stream.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            }
+        }, "TwilioVideoTraceSave").start();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /*
+     * Returns false once the trace is full, later callbacks are only forwarded
+     */
+    private boolean start(int opcode) {
+        if (full) { return false; }
+        if (buffer.size() >= LIMIT_BYTES) {
+            full = true;
+            CallLog.w("Room trace full").add("bytes", buffer.size()).log();
+            return false;
+        }
+        long now = System.nanoTime();
+        buffer.write(opcode);
+        writeVarInt((now - lastNanos) / 1000);
+        lastNanos = now;
+        return true;
+    }
+
+    private void writeString(String value) {
+        if (value == null) { value = ""; }
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarInt(index);
+            return;
+        }
+        // The next free index announces a new string, followed by its value
+        writeVarInt(strings.size());
+        strings.put(value, strings.size());
+        try {
+            out.writeUTF(value);
+        } catch (IOException e) {
+            // Not thrown by in-memory streams
+        }
+    }
+
+    private void writeBoolean(boolean value) {
+        buffer.write(value ? 1 : 0);
+    }
+
+    private void writeVarInt(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.write((int) value);
+    }
+}
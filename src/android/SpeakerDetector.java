@@ -0,0 +1,154 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Picks the dominant speaker among remote audio tracks from periodic audio level samples. Levels
+ * are smoothed with an exponential moving average. A new speaker only takes over when it is
+ * clearly louder than the current one and the current one has held the floor for the minimum
+ * hold time, so brief noises and overlapping speech do not flip the main view back and forth.
+ *
+ * Tracks whose playback is disabled may not report a level, so a received byte rate well above
+ * what Opus sends for silence is also taken as speech by collectSpeaking.
+ *
+ * Feed every level of a sample with update, then call endSample. Not thread safe.
+ */
+public class SpeakerDetector {
+
+    // Audio levels range from 0 to 32767
+    private static final double ACTIVE_LEVEL = 1000;
+    private static final double SMOOTHING = 0.3;
+    private static final double SWITCH_RATIO = 1.5;
+    // Bytes per second, Opus speech runs around 4000
+    private static final double SPEECH_BYTE_RATE = 3000;
+
+    private static class Level {
+        double smoothed;
+        double byteRate;
+        long bytesReceived;
+        long sampledBytesReceived = -1;
+        long generation;
+    }
+
+    private final Map<String, Level> levels = new HashMap<>();
+    private final Comparator<String> loudestFirst = new Comparator<String>() {
+        @Override
+        public int compare(String first, String second) {
+            return Double.compare(levels.get(second).smoothed, levels.get(first).smoothed);
+        }
+    };
+    private final long minHoldMs;
+    private long generation = 1;
+    private long lastSampleMs = -1;
+    private String dominantTrackSid;
+    private long dominantSinceMs;
+
+    public SpeakerDetector(long minHoldMs) {
+        this.minHoldMs = minHoldMs;
+    }
+
+    public void update(String trackSid, int level, long bytesReceived) {
+        Level entry = levels.get(trackSid);
+        if (entry == null) {
+            entry = new Level();
+            levels.put(trackSid, entry);
+        }
+        entry.smoothed += SMOOTHING * (level - entry.smoothed);
+        entry.bytesReceived = bytesReceived;
+        entry.generation = generation;
+    }
+
+    /*
+     * Returns the new dominant track SID when it changed with this sample, null otherwise.
+     * Tracks missing from the sample are forgotten.
+     */
+    public String endSample(long nowMs) {
+        long elapsedMs = lastSampleMs < 0 ? 0 : nowMs - lastSampleMs;
+        lastSampleMs = nowMs;
+        Level dominant = null;
+        String loudestSid = null;
+        Level loudest = null;
+        Iterator<Map.Entry<String, Level>> iterator = levels.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Level> entry = iterator.next();
+            Level level = entry.getValue();
+            if (level.generation != generation) {
+                iterator.remove();
+                continue;
+            }
+            updateByteRate(level, elapsedMs);
+            if (entry.getKey().equals(dominantTrackSid)) {
+                dominant = level;
+            }
+            if (loudest == null || level.smoothed > loudest.smoothed) {
+                loudestSid = entry.getKey();
+                loudest = level;
+            }
+        }
+        generation++;
+
+        if (dominant == null && dominantTrackSid != null) {
+            // The speaker left, anyone may take over right away
+            dominantTrackSid = null;
+        }
+        if (loudest == null || loudest == dominant || loudest.smoothed < ACTIVE_LEVEL) { return null; }
+        if (dominant != null) {
+            if (nowMs - dominantSinceMs < minHoldMs) { return null; }
+            if (loudest.smoothed < dominant.smoothed * SWITCH_RATIO) { return null; }
+        }
+        dominantTrackSid = loudestSid;
+        dominantSinceMs = nowMs;
+        return loudestSid;
+    }
+
+    public String getDominantTrackSid() {
+        return dominantTrackSid;
+    }
+
+    /*
+     * Adds the tracks heard in the last sample: the ones above the speech level, loudest first,
+     * then the ones only heard through their byte rate
+     */
+    public void collectSpeaking(List<String> trackSids) {
+        int first = trackSids.size();
+        for (Map.Entry<String, Level> entry : levels.entrySet()) {
+            if (entry.getValue().smoothed >= ACTIVE_LEVEL) {
+                trackSids.add(entry.getKey());
+            }
+        }
+        Collections.sort(trackSids.subList(first, trackSids.size()), loudestFirst);
+        for (Map.Entry<String, Level> entry : levels.entrySet()) {
+            Level level = entry.getValue();
+            if (level.smoothed < ACTIVE_LEVEL && level.byteRate >= SPEECH_BYTE_RATE) {
+                trackSids.add(entry.getKey());
+            }
+        }
+    }
+
+    /*
+     * Smoothed level of the track in the last sample, 0 when it was not sampled
+     */
+    public double getLevel(String trackSid) {
+        Level level = levels.get(trackSid);
+        return level != null ? level.smoothed : 0;
+    }
+
+    public void reset() {
+        levels.clear();
+        dominantTrackSid = null;
+        lastSampleMs = -1;
+    }
+
+    private static void updateByteRate(Level level, long elapsedMs) {
+        if (elapsedMs > 0 && level.sampledBytesReceived >= 0) {
+            double byteRate = Math.max(0, level.bytesReceived - level.sampledBytesReceived) * 1000.0 / elapsedMs;
+            level.byteRate += SMOOTHING * (byteRate - level.byteRate);
+        }
+        level.sampledBytesReceived = level.bytesReceived;
+    }
+}
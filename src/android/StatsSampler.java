@@ -0,0 +1,195 @@
+package org.apache.cordova.twiliovideo;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import com.twilio.video.LocalAudioTrackStats;
+import com.twilio.video.LocalVideoTrackStats;
+import com.twilio.video.RemoteAudioTrackStats;
+import com.twilio.video.RemoteVideoTrackStats;
+import com.twilio.video.Room;
+import com.twilio.video.StatsListener;
+import com.twilio.video.StatsReport;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+ * Polls Room stats on a background looper and reduces every report to TrackStatsRecords, one per
+ * SSRC, which are reused from one sample to the next. Samples are published as STATS events at
+ * the stats interval and kept as the manager's latest stats for the getStats action. Raw reports
+ * are also handed to the registered consumers, on the sampler thread, so the room is only polled
+ * once however many of them there are.
+ */
+public class StatsSampler {
+
+    public interface ReportsListener {
+        void onStatsReports(List<StatsReport> statsReports);
+    }
+
+    private final Map<String, TrackStatsRecord> records = new HashMap<>();
+    private final List<ReportsListener> reportsListeners = new CopyOnWriteArrayList<>();
+    private HandlerThread thread;
+    private Handler handler;
+    // Task of the current start, guarded by the sampler's lock
+    private Runnable pollRunnable;
+    private volatile Room room;
+    // Number of samples between two STATS events, 0 to never publish
+    private long publishEvery;
+    private long generation;
+
+    private final StatsListener statsListener = new StatsListener() {
+        @Override
+        public void onStats(List<StatsReport> statsReports) {
+            onSample(statsReports);
+        }
+    };
+
+    /*
+     * Listeners are cleared by stop
+     */
+    public void addReportsListener(ReportsListener reportsListener) {
+        reportsListeners.add(reportsListener);
+    }
+
+    /*
+     * Samples every intervalMs and publishes STATS events about every statsIntervalMs, which
+     * should be a multiple of the interval. A statsIntervalMs of 0 only feeds the listeners.
+     */
+    public synchronized void start(Room room, long intervalMs, long statsIntervalMs) {
+        stopPolling();
+        this.room = room;
+        this.publishEvery = statsIntervalMs > 0 ? Math.max(1, Math.round((double) statsIntervalMs / intervalMs)) : 0;
+        thread = new HandlerThread("TwilioVideoStats");
+        thread.start();
+        final Handler pollHandler = new Handler(thread.getLooper());
+        final long pollIntervalMs = intervalMs;
+        handler = pollHandler;
+        pollRunnable = new Runnable() {
+            @Override
+            public void run() {
+                Room currentRoom = room;
+                if (currentRoom == null) { return; }
+                currentRoom.getStats(statsListener);
+                synchronized (StatsSampler.this) {
+                    // Not rescheduled once stop or a new start replaced this task
+                    if (pollRunnable == this) {
+                        pollHandler.postDelayed(this, pollIntervalMs);
+                    }
+                }
+            }
+        };
+        pollHandler.postDelayed(pollRunnable, pollIntervalMs);
+    }
+
+    public synchronized void stop() {
+        stopPolling();
+        reportsListeners.clear();
+    }
+
+    private void stopPolling() {
+        room = null;
+        TwilioVideoManager.getInstance().setLatestStats(null);
+        if (thread != null) {
+            handler.removeCallbacks(pollRunnable);
+            thread.quitSafely();
+            thread = null;
+            handler = null;
+            pollRunnable = null;
+        }
+    }
+
+    /*
+     * Runs on the sampler thread
+     */
+    private void onSample(List<StatsReport> statsReports) {
+        synchronized (this) {
+            if (room == null) { return; }
+        }
+
+        generation++;
+        for (StatsReport report : statsReports) {
+            for (LocalAudioTrackStats stats : report.getLocalAudioTrackStats()) {
+                TrackStatsRecord record = record(stats.ssrc, TrackStatsRecord.LOCAL_AUDIO, stats.trackSid, stats.codec);
+                record.update(stats.bytesSent, stats.timestamp);
+                record.packetsLost = stats.packetsLost;
+                record.jitter = stats.jitter;
+                record.roundTripTime = stats.roundTripTime;
+            }
+            for (LocalVideoTrackStats stats : report.getLocalVideoTrackStats()) {
+                TrackStatsRecord record = record(stats.ssrc, TrackStatsRecord.LOCAL_VIDEO, stats.trackSid, stats.codec);
+                record.update(stats.bytesSent, stats.timestamp);
+                record.packetsLost = stats.packetsLost;
+                record.roundTripTime = stats.roundTripTime;
+                record.frameRate = stats.frameRate;
+                record.width = stats.dimensions != null ? stats.dimensions.width : 0;
+                record.height = stats.dimensions != null ? stats.dimensions.height : 0;
+            }
+            for (RemoteAudioTrackStats stats : report.getRemoteAudioTrackStats()) {
+                TrackStatsRecord record = record(stats.ssrc, TrackStatsRecord.REMOTE_AUDIO, stats.trackSid, stats.codec);
+                record.update(stats.bytesReceived, stats.timestamp);
+                record.packetsLost = stats.packetsLost;
+                record.jitter = stats.jitter;
+            }
+            for (RemoteVideoTrackStats stats : report.getRemoteVideoTrackStats()) {
+                TrackStatsRecord record = record(stats.ssrc, TrackStatsRecord.REMOTE_VIDEO, stats.trackSid, stats.codec);
+                record.update(stats.bytesReceived, stats.timestamp);
+                record.packetsLost = stats.packetsLost;
+                record.frameRate = stats.frameRate;
+                record.width = stats.dimensions != null ? stats.dimensions.width : 0;
+                record.height = stats.dimensions != null ? stats.dimensions.height : 0;
+            }
+        }
+
+        Iterator<TrackStatsRecord> iterator = records.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().generation != generation) {
+                // The encoding is gone
+                iterator.remove();
+            }
+        }
+        if (publishEvery > 0 && generation % publishEvery == 0) {
+            publish();
+        }
+
+        for (ReportsListener listener : reportsListeners) {
+            listener.onStatsReports(statsReports);
+        }
+    }
+
+    private void publish() {
+        JSONArray tracks = new JSONArray();
+        try {
+            for (TrackStatsRecord record : records.values()) {
+                tracks.put(record.toJson());
+            }
+            JSONObject data = new JSONObject();
+            data.put("tracks", tracks);
+            TwilioVideoManager.getInstance().setLatestStats(data);
+            TwilioVideoManager.getInstance().publishEvent(CallEvent.STATS, data);
+        } catch (JSONException e) {
+            Log.e(TwilioVideo.TAG, "Error building stats event data");
+        }
+    }
+
+    private TrackStatsRecord record(String ssrc, String kind, String trackSid, String codec) {
+        TrackStatsRecord record = records.get(ssrc);
+        if (record == null) {
+            record = new TrackStatsRecord();
+            records.put(ssrc, record);
+        }
+        record.kind = kind;
+        record.trackSid = trackSid;
+        record.codec = codec;
+        record.generation = generation;
+        return record;
+    }
+}
@@ -0,0 +1,34 @@
+package org.apache.cordova.twiliovideo;
+
+import com.twilio.video.I420Frame;
+import com.twilio.video.VideoRenderer;
+
+/*
+ * Passes frames to a renderer at no more than the given frame rate and releases the others right
+ * away, so a thumbnail does not convert and upload every decoded frame. Frames are spaced on a
+ * schedule rather than from the last accepted one, with a quarter interval of tolerance, so
+ * arrival jitter does not halve the delivered rate.
+ */
+public class ThrottledVideoRenderer implements VideoRenderer {
+
+    private final VideoRenderer renderer;
+    private final long frameIntervalNs;
+    private long nextFrameNs = Long.MIN_VALUE;
+
+    public ThrottledVideoRenderer(VideoRenderer renderer, int maxFps) {
+        this.renderer = renderer;
+        this.frameIntervalNs = 1000000000L / maxFps;
+    }
+
+    @Override
+    public void renderFrame(I420Frame frame) {
+        long nowNs = System.nanoTime();
+        if (nextFrameNs != Long.MIN_VALUE && nowNs < nextFrameNs - frameIntervalNs / 4) {
+            frame.release();
+            return;
+        }
+        // After a stall the schedule restarts from now, so no frame follows right behind this one
+        nextFrameNs = nowNs > nextFrameNs ? nowNs + frameIntervalNs : nextFrameNs + frameIntervalNs;
+        renderer.renderFrame(frame);
+    }
+}
@@ -0,0 +1,67 @@
+package org.apache.cordova.twiliovideo;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/*
+ * Compact per-encoding view of a track stats entry. StatsSampler keeps one instance per SSRC and
+ * refreshes it on every sample instead of allocating new records.
+ */
+public class TrackStatsRecord {
+
+    public static final String LOCAL_AUDIO = "localAudio";
+    public static final String LOCAL_VIDEO = "localVideo";
+    public static final String REMOTE_AUDIO = "remoteAudio";
+    public static final String REMOTE_VIDEO = "remoteVideo";
+
+    String kind;
+    String trackSid;
+    String codec;
+    // Bits per second since the previous sample, 0 on the first one
+    long bitrate;
+    int packetsLost;
+    // Milliseconds, audio only
+    int jitter;
+    // Milliseconds, local tracks only
+    long roundTripTime;
+    // Video only
+    int frameRate;
+    int width;
+    int height;
+
+    // Bytes sent or received and stats timestamp of the previous sample
+    long lastBytes = -1;
+    double lastTimestamp;
+    // Sample in which the record was last refreshed
+    long generation;
+
+    void update(long bytes, double timestamp) {
+        if (lastBytes >= 0 && timestamp > lastTimestamp && bytes >= lastBytes) {
+            bitrate = (long) ((bytes - lastBytes) * 8 * 1000 / (timestamp - lastTimestamp));
+        } else {
+            bitrate = 0;
+        }
+        lastBytes = bytes;
+        lastTimestamp = timestamp;
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("kind", kind);
+        json.put("trackSid", trackSid);
+        json.putOpt("codec", codec);
+        json.put("bitrate", bitrate);
+        json.put("packetsLost", packetsLost);
+        if (LOCAL_AUDIO.equals(kind) || REMOTE_AUDIO.equals(kind)) {
+            json.put("jitter", jitter);
+        } else {
+            json.put("frameRate", frameRate);
+            json.put("width", width);
+            json.put("height", height);
+        }
+        if (LOCAL_AUDIO.equals(kind) || LOCAL_VIDEO.equals(kind)) {
+            json.put("roundTripTime", roundTripTime);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,291 @@
+package org.apache.cordova.twiliovideo;
+
+import com.twilio.video.RemoteAudioTrack;
+import com.twilio.video.RemoteAudioTrackPublication;
+import com.twilio.video.RemoteDataTrack;
+import com.twilio.video.RemoteDataTrackPublication;
+import com.twilio.video.RemoteParticipant;
+import com.twilio.video.RemoteVideoTrack;
+import com.twilio.video.RemoteVideoTrackPublication;
+import com.twilio.video.Room;
+import com.twilio.video.TwilioException;
+
+/*
+ * Room engine backed by the Twilio SDK. It is the Room.Listener handed to Video.connect: the
+ * connection callbacks go to the host's own listener, while participants and their tracks are
+ * kept in the registry, for the renderers, and reported to the CallRoomListener. Subscriptions
+ * are registered before they are reported and removed after, so the listener can always look
+ * the tracks up.
+ */
+public class TwilioRoomEngine implements CallRoomEngine, Room.Listener {
+
+    private final ParticipantRegistry registry;
+    private final Room.Listener hostListener;
+    private CallRoomListener listener;
+
+    public TwilioRoomEngine(ParticipantRegistry registry, Room.Listener hostListener) {
+        this.registry = registry;
+        this.hostListener = hostListener;
+    }
+
+    @Override
+    public void setListener(CallRoomListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void onConnected(Room room) {
+        hostListener.onConnected(room);
+        for (RemoteParticipant participant : room.getRemoteParticipants()) {
+            addRemoteParticipant(participant);
+        }
+        listener.onConnected();
+    }
+
+    @Override
+    public void onConnectFailure(Room room, TwilioException e) {
+        hostListener.onConnectFailure(room, e);
+    }
+
+    @Override
+    public void onReconnecting(Room room, TwilioException twilioException) {
+        hostListener.onReconnecting(room, twilioException);
+    }
+
+    @Override
+    public void onReconnected(Room room) {
+        hostListener.onReconnected(room);
+    }
+
+    @Override
+    public void onDisconnected(Room room, TwilioException e) {
+        listener.onDisconnected();
+        hostListener.onDisconnected(room, e);
+    }
+
+    @Override
+    public void onParticipantConnected(Room room, RemoteParticipant participant) {
+        addRemoteParticipant(participant);
+        hostListener.onParticipantConnected(room, participant);
+    }
+
+    @Override
+    public void onParticipantDisconnected(Room room, RemoteParticipant participant) {
+        listener.onParticipantDisconnected(participant.getSid());
+        registry.removeParticipant(participant.getSid());
+        hostListener.onParticipantDisconnected(room, participant);
+    }
+
+    @Override
+    public void onRecordingStarted(Room room) {
+        hostListener.onRecordingStarted(room);
+    }
+
+    @Override
+    public void onRecordingStopped(Room room) {
+        hostListener.onRecordingStopped(room);
+    }
+
+    private void addRemoteParticipant(RemoteParticipant participant) {
+        registry.addParticipant(participant);
+        // Start listening for participant media events
+        participant.setListener(remoteParticipantListener);
+        listener.onParticipantConnected(participant.getSid(), participant.getIdentity());
+    }
+
+    private static void markFirstRemoteTrack() {
+        TwilioVideoManager.getInstance().getCallSetupTimings().mark(CallSetupTimings.Milestone.FIRST_REMOTE_TRACK_SUBSCRIBED);
+    }
+
+    /*
+     * Shared by every remote participant, the callbacks carry the participant
+     */
+    private final RemoteParticipant.Listener remoteParticipantListener = new RemoteParticipant.Listener() {
+
+        @Override
+        public void onAudioTrackPublished(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication) {
+            CallLog.i("onAudioTrackPublished")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteAudioTrackPublication.getTrackSid())
+                    .add("enabled", remoteAudioTrackPublication.isTrackEnabled())
+                    .add("subscribed", remoteAudioTrackPublication.isTrackSubscribed())
+                    .add("name", remoteAudioTrackPublication.getTrackName())
+                    .log();
+        }
+
+        @Override
+        public void onAudioTrackUnpublished(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication) {
+            CallLog.i("onAudioTrackUnpublished")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteAudioTrackPublication.getTrackSid())
+                    .add("enabled", remoteAudioTrackPublication.isTrackEnabled())
+                    .add("subscribed", remoteAudioTrackPublication.isTrackSubscribed())
+                    .add("name", remoteAudioTrackPublication.getTrackName())
+                    .log();
+        }
+
+        @Override
+        public void onAudioTrackSubscribed(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication, RemoteAudioTrack remoteAudioTrack) {
+            CallLog.i("onAudioTrackSubscribed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("enabled", remoteAudioTrack.isEnabled())
+                    .add("playbackEnabled", remoteAudioTrack.isPlaybackEnabled())
+                    .add("name", remoteAudioTrack.getName())
+                    .log();
+            markFirstRemoteTrack();
+            registry.addAudioTrack(remoteParticipant.getSid(), remoteAudioTrack);
+            listener.onAudioTrackSubscribed(remoteParticipant.getSid(), remoteAudioTrack.getSid(), remoteAudioTrack.getName());
+        }
+
+        @Override
+        public void onAudioTrackSubscriptionFailed(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication, TwilioException twilioException) {
+            CallLog.w("onAudioTrackSubscriptionFailed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteAudioTrackPublication.getTrackSid())
+                    .add("name", remoteAudioTrackPublication.getTrackName())
+                    .add("code", twilioException.getCode())
+                    .add("message", twilioException.getMessage())
+                    .log();
+        }
+
+        @Override
+        public void onAudioTrackUnsubscribed(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication, RemoteAudioTrack remoteAudioTrack) {
+            CallLog.i("onAudioTrackUnsubscribed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("enabled", remoteAudioTrack.isEnabled())
+                    .add("playbackEnabled", remoteAudioTrack.isPlaybackEnabled())
+                    .add("name", remoteAudioTrack.getName())
+                    .log();
+            listener.onAudioTrackUnsubscribed(remoteParticipant.getSid(), remoteAudioTrack.getSid());
+            registry.removeAudioTrack(remoteAudioTrack.getSid());
+        }
+
+        @Override
+        public void onVideoTrackPublished(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication) {
+            CallLog.i("onVideoTrackPublished")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteVideoTrackPublication.getTrackSid())
+                    .add("enabled", remoteVideoTrackPublication.isTrackEnabled())
+                    .add("subscribed", remoteVideoTrackPublication.isTrackSubscribed())
+                    .add("name", remoteVideoTrackPublication.getTrackName())
+                    .log();
+        }
+
+        @Override
+        public void onVideoTrackUnpublished(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication) {
+            CallLog.i("onVideoTrackUnpublished")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteVideoTrackPublication.getTrackSid())
+                    .add("enabled", remoteVideoTrackPublication.isTrackEnabled())
+                    .add("subscribed", remoteVideoTrackPublication.isTrackSubscribed())
+                    .add("name", remoteVideoTrackPublication.getTrackName())
+                    .log();
+        }
+
+        @Override
+        public void onVideoTrackSubscribed(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication, RemoteVideoTrack remoteVideoTrack) {
+            CallLog.i("onVideoTrackSubscribed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("enabled", remoteVideoTrack.isEnabled())
+                    .add("name", remoteVideoTrack.getName())
+                    .log();
+            markFirstRemoteTrack();
+            registry.addVideoTrack(remoteParticipant.getSid(), remoteVideoTrack);
+            listener.onVideoTrackSubscribed(remoteParticipant.getSid(), remoteVideoTrack.getSid(),
+                    remoteVideoTrack.getName(), remoteVideoTrack.isEnabled());
+        }
+
+        @Override
+        public void onVideoTrackSubscriptionFailed(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication, TwilioException twilioException) {
+            CallLog.w("onVideoTrackSubscriptionFailed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteVideoTrackPublication.getTrackSid())
+                    .add("name", remoteVideoTrackPublication.getTrackName())
+                    .add("code", twilioException.getCode())
+                    .add("message", twilioException.getMessage())
+                    .log();
+        }
+
+        @Override
+        public void onVideoTrackUnsubscribed(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication, RemoteVideoTrack remoteVideoTrack) {
+            CallLog.i("onVideoTrackUnsubscribed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("enabled", remoteVideoTrack.isEnabled())
+                    .add("name", remoteVideoTrack.getName())
+                    .log();
+            listener.onVideoTrackUnsubscribed(remoteParticipant.getSid(), remoteVideoTrack.getSid());
+            registry.removeVideoTrack(remoteVideoTrack.getSid());
+        }
+
+        @Override
+        public void onDataTrackPublished(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication) {
+            CallLog.i("onDataTrackPublished")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteDataTrackPublication.getTrackSid())
+                    .add("enabled", remoteDataTrackPublication.isTrackEnabled())
+                    .add("subscribed", remoteDataTrackPublication.isTrackSubscribed())
+                    .add("name", remoteDataTrackPublication.getTrackName())
+                    .log();
+        }
+
+        @Override
+        public void onDataTrackUnpublished(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication) {
+            CallLog.i("onDataTrackUnpublished")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteDataTrackPublication.getTrackSid())
+                    .add("enabled", remoteDataTrackPublication.isTrackEnabled())
+                    .add("subscribed", remoteDataTrackPublication.isTrackSubscribed())
+                    .add("name", remoteDataTrackPublication.getTrackName())
+                    .log();
+        }
+
+        @Override
+        public void onDataTrackSubscribed(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication, RemoteDataTrack remoteDataTrack) {
+            CallLog.i("onDataTrackSubscribed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("enabled", remoteDataTrack.isEnabled())
+                    .add("name", remoteDataTrack.getName())
+                    .log();
+        }
+
+        @Override
+        public void onDataTrackSubscriptionFailed(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication, TwilioException twilioException) {
+            CallLog.w("onDataTrackSubscriptionFailed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("sid", remoteDataTrackPublication.getTrackSid())
+                    .add("name", remoteDataTrackPublication.getTrackName())
+                    .add("code", twilioException.getCode())
+                    .add("message", twilioException.getMessage())
+                    .log();
+        }
+
+        @Override
+        public void onDataTrackUnsubscribed(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication, RemoteDataTrack remoteDataTrack) {
+            CallLog.i("onDataTrackUnsubscribed")
+                    .add("identity", remoteParticipant.getIdentity())
+                    .add("enabled", remoteDataTrack.isEnabled())
+                    .add("name", remoteDataTrack.getName())
+                    .log();
+        }
+
+        @Override
+        public void onAudioTrackEnabled(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication) {
+
+        }
+
+        @Override
+        public void onAudioTrackDisabled(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication) {
+
+        }
+
+        @Override
+        public void onVideoTrackEnabled(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication) {
+            listener.onVideoTrackEnabledChanged(remoteParticipant.getSid(), remoteVideoTrackPublication.getTrackSid(), true);
+        }
+
+        @Override
+        public void onVideoTrackDisabled(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication) {
+            listener.onVideoTrackEnabledChanged(remoteParticipant.getSid(), remoteVideoTrackPublication.getTrackSid(), false);
+        }
+    };
+}
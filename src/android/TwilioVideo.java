@@ -19,6 +19,8 @@ import org.json.JSONException;
 
 import org.json.JSONObject;
 
+import java.util.List;
+
 public class TwilioVideo extends CordovaPlugin {
 
     public static final String TAG = "TwilioPlugin";
@@ -34,6 +36,8 @@ public class TwilioVideo extends CordovaPlugin {
     private String roomId;
     private String token;
     private CallConfig config = new CallConfig();
+    private CallEventObserver bridgeEventObserver;
+    private TwilioVideoOverlay overlay;
 
     @Override
     public void initialize(CordovaInterface cordova, CordovaWebView webView) {
@@ -57,11 +61,32 @@ public class TwilioVideo extends CordovaPlugin {
             case "requestPermissions":
                 this.requestRequiredPermissions();
                 break;
+            case "prepareRoom":
+                this.prepareRoom(args, callbackContext);
+                break;
+            case "subscribeEvents":
+                this.registerCallListener(callbackContext, args.optLong(0, 0));
+                break;
+            case "setQualityProfile":
+                this.setQualityProfile(args, callbackContext);
+                break;
+            case "getCallTimings":
+                callbackContext.success(TwilioVideoManager.getInstance().getCallSetupTimings().toJson());
+                break;
+            case "getStats":
+                this.getStats(callbackContext);
+                break;
+            case "setVideoFrame":
+                this.setVideoFrame(args, callbackContext);
+                break;
         }
         return true;
     }
 
     public void openRoom(final JSONArray args) {
+        CallSetupTimings timings = TwilioVideoManager.getInstance().getCallSetupTimings();
+        timings.reset();
+        timings.mark(CallSetupTimings.Milestone.OPEN_ROOM);
         try {
             this.token = args.getString(0);
             this.roomId = args.getString(1);
@@ -71,10 +96,20 @@ public class TwilioVideo extends CordovaPlugin {
             if (args.length() > 2) {
                 this.config.parse(args.getJSONObject(2));
             }
+            CallLog.configure(CallLog.parseLevel(config.getLogLevel()), config.getLogBufferSize());
+            TwilioVideoManager.getInstance().setEventBatching(
+                    config.getEventBatchMode(), config.getEventBatchWindowMs());
+            TwilioVideoManager.getInstance().setEventQueuePolicy(
+                    config.getEventQueueCapacity(), config.getEventOverflowPolicy());
 
             LOG.d(TAG, "TOKEN: " + token);
             LOG.d(TAG, "ROOMID: " + roomId);
 
+            if (config.isEmbedded()) {
+                openEmbeddedRoom(token, roomId);
+                return;
+            }
+
             cordova.getThreadPool().execute(new Runnable() {
                 public void run() {
                     Intent intentTwilioVideo = new Intent(Intent.ACTION_VIEW);
@@ -92,29 +127,173 @@ public class TwilioVideo extends CordovaPlugin {
         }
     }
 
+    /*
+     * Attaches the call to the WebView's activity instead of launching TwilioVideoActivity.
+     * Camera and microphone permissions must already be granted, otherwise only
+     * PERMISSIONS_REQUIRED is published.
+     */
+    private void openEmbeddedRoom(final String token, final String roomId) {
+        for (String permission : TwilioVideo.PERMISSIONS_REQUIRED) {
+            if (!cordova.hasPermission(permission)) {
+                TwilioVideoManager.getInstance().publishEvent(CallEvent.PERMISSIONS_REQUIRED, null);
+                return;
+            }
+        }
+
+        final CallConfig overlayConfig = this.config;
+        cordova.getActivity().runOnUiThread(new Runnable() {
+            public void run() {
+                if (overlay != null) {
+                    overlay.close();
+                }
+                overlay = new TwilioVideoOverlay(cordova.getActivity(), webView.getView(), token, roomId, overlayConfig);
+                int[] frame = overlayConfig.getVideoFrame();
+                overlay.open(frame[0], frame[1], frame[2], frame[3]);
+            }
+        });
+    }
+
+    /*
+     * Moves or resizes the embedded video container. Values are CSS pixels relative to the WebView.
+     */
+    private void setVideoFrame(final JSONArray args, final CallbackContext callbackContext) {
+        cordova.getActivity().runOnUiThread(new Runnable() {
+            public void run() {
+                if (overlay == null) {
+                    callbackContext.error("Twilio video is not running in embedded mode");
+                    return;
+                }
+                overlay.setFrame(args.optInt(0, 0), args.optInt(1, 0),
+                        Math.max(0, args.optInt(2, 0)), Math.max(0, args.optInt(3, 0)));
+                callbackContext.success();
+            }
+        });
+    }
+
+    /*
+     * Builds the camera capturer and local tracks ahead of openRoom so the call starts faster
+     */
+    private void prepareRoom(JSONArray args, final CallbackContext callbackContext) {
+        for (String permission : TwilioVideo.PERMISSIONS_REQUIRED) {
+            if (!cordova.hasPermission(permission)) {
+                callbackContext.error("Missing required permissions");
+                return;
+            }
+        }
+
+        final CallConfig prepareConfig = new CallConfig();
+        prepareConfig.parse(args.optJSONObject(0));
+        cordova.getActivity().runOnUiThread(new Runnable() {
+            public void run() {
+                PreparedLocalMedia.prepare(cordova.getActivity(), prepareConfig);
+                callbackContext.success();
+            }
+        });
+    }
+
     private void registerCallListener(final CallbackContext callbackContext) {
+        registerCallListener(callbackContext, -1);
+    }
+
+    /*
+     * A non negative sequence replays every event published after it that is still in the
+     * manager's event history before delivering live events
+     */
+    private void registerCallListener(final CallbackContext callbackContext, long replaySinceSequence) {
         if (callbackContext == null) {
             return;
         }
-        TwilioVideoManager.getInstance().setEventObserver(new CallEventObserver() {
+        TwilioVideoManager manager = TwilioVideoManager.getInstance();
+        manager.removeEventObserver(bridgeEventObserver);
+        bridgeEventObserver = new CallEventBatchObserver() {
             @Override
             public void onEvent(String event, JSONObject data) {
-                Log.i(TAG, String.format("Event received: %s with data: %s", event, data));
-
-                JSONObject eventData = new JSONObject();
-                try {
-                    eventData.putOpt("event", event);
-                    eventData.putOpt("data", data);
-                } catch (JSONException e) {
-                    Log.e(TAG, "Failed to create event: " + event);
+                JSONObject eventData = toEventData(event, data);
+                if (eventData != null) {
+                    sendEventResult(callbackContext, new PluginResult(PluginResult.Status.OK, eventData));
+                }
+            }
+
+            @Override
+            public void onEvents(List<CallEventRecord> records) {
+                if (records.size() == 1) {
+                    JSONObject eventData = toEventData(records.get(0));
+                    if (eventData != null) {
+                        sendEventResult(callbackContext, new PluginResult(PluginResult.Status.OK, eventData));
+                    }
                     return;
                 }
 
-                PluginResult result = new PluginResult(PluginResult.Status.OK, eventData);
-                result.setKeepCallback(true);
-                callbackContext.sendPluginResult(result);
+                JSONArray batch = new JSONArray();
+                for (CallEventRecord record : records) {
+                    JSONObject eventData = toEventData(record);
+                    if (eventData != null) {
+                        batch.put(eventData);
+                    }
+                }
+                sendEventResult(callbackContext, new PluginResult(PluginResult.Status.OK, batch));
             }
-        });
+        };
+        if (replaySinceSequence >= 0) {
+            manager.addEventObserver(bridgeEventObserver, replaySinceSequence);
+        } else {
+            manager.addEventObserver(bridgeEventObserver);
+        }
+    }
+
+    private static JSONObject toEventData(String event, JSONObject data) {
+        JSONObject eventData = new JSONObject();
+        try {
+            eventData.putOpt("event", event);
+            eventData.putOpt("data", data);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to create event: " + event);
+            return null;
+        }
+        return eventData;
+    }
+
+    private static JSONObject toEventData(CallEventRecord record) {
+        JSONObject eventData = toEventData(record.getEvent().name(), record.getData());
+        if (eventData == null) { return null; }
+        try {
+            eventData.put("seq", record.getSequence());
+            eventData.put("timestamp", record.getTimestamp());
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to create event: " + record.getEvent());
+            return null;
+        }
+        return eventData;
+    }
+
+    private static void sendEventResult(CallbackContext callbackContext, PluginResult result) {
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+    }
+
+    /*
+     * Switches the running call to another quality profile: encoder bitrates and capture limits
+     */
+    private void setQualityProfile(JSONArray args, CallbackContext callbackContext) {
+        QualityProfile qualityProfile = QualityProfile.fromName(args.optString(0, null));
+        if (qualityProfile == null) {
+            callbackContext.error("Unknown quality profile");
+            return;
+        }
+        if (TwilioVideoManager.getInstance().publishQualityProfile(qualityProfile)) {
+            callbackContext.success();
+        } else {
+            callbackContext.error("Twilio video is not running");
+        }
+    }
+
+    private void getStats(CallbackContext callbackContext) {
+        JSONObject stats = TwilioVideoManager.getInstance().getLatestStats();
+        if (stats != null) {
+            callbackContext.success(stats);
+        } else {
+            callbackContext.error("No stats available");
+        }
     }
 
     private void closeRoom(CallbackContext callbackContext) {
@@ -158,6 +337,36 @@ public class TwilioVideo extends CordovaPlugin {
         }
     }
 
+    @Override
+    public void onPause(boolean multitasking) {
+        if (overlay != null) {
+            overlay.onPause();
+        }
+        super.onPause(multitasking);
+    }
+
+    @Override
+    public void onResume(boolean multitasking) {
+        super.onResume(multitasking);
+        if (overlay != null) {
+            overlay.onResume();
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        if (overlay != null) {
+            overlay.close();
+            overlay = null;
+        }
+        // The observer holds the CallbackContext of this plugin instance, which is gone with it
+        if (bridgeEventObserver != null) {
+            TwilioVideoManager.getInstance().removeEventObserver(bridgeEventObserver);
+            bridgeEventObserver = null;
+        }
+        super.onDestroy();
+    }
+
     public Bundle onSaveInstanceState() {
         Bundle state = new Bundle();
         state.putString("token", this.token);
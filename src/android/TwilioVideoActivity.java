@@ -1,7 +1,6 @@
 package org.apache.cordova.twiliovideo;
 
 import android.Manifest;
-import android.annotation.SuppressLint;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
@@ -14,6 +13,7 @@ import android.media.AudioFocusRequest;
 import android.media.AudioManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import androidx.core.app.ActivityCompat;
@@ -27,30 +27,25 @@ import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import com.twilio.video.CameraCapturer;
+import com.twilio.video.AudioCodec;
 import com.twilio.video.CameraCapturer.CameraSource;
 import com.twilio.video.ConnectOptions;
 import com.twilio.video.LocalAudioTrack;
 import com.twilio.video.LocalParticipant;
 import com.twilio.video.LocalVideoTrack;
 import com.twilio.video.RemoteAudioTrack;
-import com.twilio.video.RemoteAudioTrackPublication;
-import com.twilio.video.RemoteDataTrack;
-import com.twilio.video.RemoteDataTrackPublication;
 import com.twilio.video.RemoteParticipant;
-import com.twilio.video.RemoteVideoTrack;
-import com.twilio.video.RemoteVideoTrackPublication;
 import com.twilio.video.Room;
 import com.twilio.video.TwilioException;
 import com.twilio.video.Video;
+import com.twilio.video.VideoConstraints;
 import com.twilio.video.VideoRenderer;
-import com.twilio.video.VideoTrack;
 import com.twilio.video.VideoView;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
+import java.io.File;
 import java.util.Collections;
 import java.util.List;
 
@@ -65,8 +60,8 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
      * other participants can use RemoteVideoTrack#getName to determine which video track is
      * produced from the other participant's screen or camera.
      */
-    private static final String LOCAL_AUDIO_TRACK_NAME = "microphone";
-    private static final String LOCAL_VIDEO_TRACK_NAME = "camera";
+    static final String LOCAL_AUDIO_TRACK_NAME = "microphone";
+    static final String LOCAL_VIDEO_TRACK_NAME = "camera";
 
     private static final int PERMISSIONS_REQUEST_CODE = 1;
 
@@ -85,10 +80,7 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
      */
     private Room room;
     private LocalParticipant localParticipant;
-    private RemoteParticipant remoteParticipant;
-    private VideoTrack originalRemoteTrack;
-    private List<RemoteParticipant> remoteParticipants = new ArrayList<>();
-    private RemoteParticipant mainViewParticipant;
+    private final ParticipantRegistry participantRegistry = new ParticipantRegistry();
 
     /*
      * A VideoView receives frames from a local or remote video track and renders them
@@ -96,11 +88,16 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
      */
     private VideoView primaryVideoView;
     private VideoView thumbnailVideoView;
-    private List<VideoView> sideViews = new ArrayList<>();
-    private int numberActiveVideoTracks = 11;
+    private VideoTilePool sideTilePool;
+    private VideoLayoutReconciler layoutReconciler;
+    private CallRoomSession roomSession;
+    // The session, or the trace recorder in front of it
+    private CallRoomListener roomCallbacks;
+    private CaptureQualityController captureQualityController;
+    private final PublishingLayersReporter publishingLayersReporter = new PublishingLayersReporter();
+    private final StatsSampler statsSampler = new StatsSampler();
+    private AudioLevelMonitor audioLevelMonitor;
 
-    private VideoTrack mainViewVideoTrack = null;
-    private VideoTrack newMainViewVideoTrack = null;
     /*
      * Android application UI elements
      */
@@ -118,11 +115,12 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
     private LinearLayout videoMainLinearLayout;
     // private FloatingActionButton switchAudioActionFab;
     private AudioManager audioManager;
-    private String participantIdentity;
 
     private int previousAudioMode;
     private boolean previousMicrophoneMute;
     private boolean disconnectedFromOnDestroy;
+    private boolean localVideoPaused;
+    private boolean localVideoEnabledBeforePause;
     private VideoRenderer localVideoView;
 
 
@@ -130,15 +128,17 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        TwilioVideoManager.getInstance().setActionListenerObserver(this);
+        TwilioVideoManager.getInstance().addActionObserver(this);
 
         FAKE_R = new FakeR(this);
 
+        markSetupMilestone(CallSetupTimings.Milestone.CALL_UI_CREATED);
         publishEvent(CallEvent.OPENED);
         setContentView(FAKE_R.getLayout("activity_video"));
 
         primaryVideoView = findViewById(FAKE_R.getId("primary_video_view"));
         thumbnailVideoView = findViewById(FAKE_R.getId("thumbnail_video_view"));
+        primaryVideoView.setListener(TwilioVideoManager.getInstance().getCallSetupTimings().getFirstRemoteFrameListener());
 
         // connectActionFab = findViewById(FAKE_R.getId("connect_action_fab"));
         callEndText = findViewById(FAKE_R.getId("call_end_text"));
@@ -165,12 +165,41 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
         this.roomId = intent.getStringExtra("roomId");
         this.config = (CallConfig) intent.getSerializableExtra("config");
 
-        Log.d(TwilioVideo.TAG, "BEFORE REQUEST PERMISSIONS");
+        sideTilePool = new VideoTilePool(this,
+                (FrameLayout) findViewById(FAKE_R.getId("video_container")),
+                config.getSideViewPoolSize());
+        layoutReconciler = new VideoLayoutReconciler(primaryVideoView, sideTilePool, participantRegistry,
+                config.getThumbnailMaxFps());
+        roomSession = new CallRoomSession(roomSessionHost(), layoutReconciler, config);
+        roomCallbacks = roomSession;
+        audioLevelMonitor = new AudioLevelMonitor(config.getDominantSpeakerHoldMs(),
+                new AudioLevelMonitor.Listener() {
+                    @Override
+                    public void onDominantSpeakerChanged(String audioTrackSid) {
+                        if (config.isDominantSpeaker()) {
+                            roomCallbacks.onDominantSpeakerChanged(audioTrackSid);
+                        }
+                    }
+
+                    @Override
+                    public void onSpeechDetected(List<String> audioTrackSids) {
+                        roomCallbacks.onSpeechDetected(audioTrackSids, SystemClock.elapsedRealtime());
+                    }
+                });
+        captureQualityController = new CaptureQualityController(config,
+                new CaptureQualityController.Listener() {
+                    @Override
+                    public void onCaptureConstraintsChanged(VideoConstraints constraints) {
+                        applyCaptureConstraints(constraints);
+                    }
+                });
+
         if (!hasPermissionForCameraAndMicrophone()) {
-            Log.d(TwilioVideo.TAG, "REQUEST PERMISSIONS");
+            CallLog.d("Requesting permissions").log();
             requestPermissions();
         } else {
-            Log.d(TwilioVideo.TAG, "PERMISSIONS OK. CREATE LOCAL MEDIA");
+            CallLog.d("Permissions granted, creating local media").log();
+            markSetupMilestone(CallSetupTimings.Milestone.PERMISSIONS_GRANTED);
             createAudioAndVideoTracks();
             connectToRoom();
         }
@@ -193,6 +222,7 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
             }
 
             if (permissionsGranted) {
+                markSetupMilestone(CallSetupTimings.Milestone.PERMISSIONS_GRANTED);
                 createAudioAndVideoTracks();
                 connectToRoom();
             } else {
@@ -205,27 +235,33 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
     @Override
     protected void onResume() {
         super.onResume();
+        if (config.isForegroundService()) {
+            resumeLocalVideo();
+            return;
+        }
         /*
          * If the local video track was released when the app was put in the background, recreate.
          */
         if (localVideoTrack == null && hasPermissionForCameraAndMicrophone()) {
-            localVideoTrack = LocalVideoTrack.create(this,
-                    true,
-                    cameraCapturer.getVideoCapturer(),
-                    LOCAL_VIDEO_TRACK_NAME);
-            localVideoTrack.addRenderer(thumbnailVideoView);
-
             /*
              * If connected to a Room then share the local video track.
              */
-            if (localParticipant != null) {
-                localParticipant.publishTrack(localVideoTrack);
-            }
+            localVideoTrack = CaptureQualityController.replaceLocalVideoTrack(this,
+                    localParticipant,
+                    null,
+                    cameraCapturer.getVideoCapturer(),
+                    captureQualityController.getCaptureConstraints(),
+                    thumbnailVideoView);
         }
     }
 
     @Override
     protected void onPause() {
+        if (config.isForegroundService()) {
+            pauseLocalVideo();
+            super.onPause();
+            return;
+        }
         /*
          * Release the local video track before going in the background. This ensures that the
          * camera can be used by other applications while this app is in the background.
@@ -246,6 +282,31 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
         super.onPause();
     }
 
+    /*
+     * The room size moved to another tier of the capture quality ladder
+     */
+    private void applyCaptureConstraints(VideoConstraints constraints) {
+        // Released while in the background, onResume will create it with the new constraints
+        if (localVideoTrack == null) { return; }
+        localVideoTrack = CaptureQualityController.replaceLocalVideoTrack(this,
+                localParticipant,
+                localVideoTrack,
+                cameraCapturer.getVideoCapturer(),
+                constraints,
+                localVideoPaused ? null : thumbnailVideoView);
+        if (config.isForegroundService()) {
+            TwilioVideoCallService.setLocalVideoTrack(localVideoTrack);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_RUNNING_LOW && sideTilePool != null) {
+            sideTilePool.trimIdle();
+        }
+    }
+
     @Override
     public void onBackPressed() {
         super.onBackPressed();
@@ -255,6 +316,38 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
     @Override
     protected void onDestroy() {
 
+        captureQualityController.release();
+        publishingLayersReporter.stop();
+        statsSampler.stop();
+        roomSession.clear();
+        sideTilePool.release();
+        participantRegistry.clear();
+
+        if (config.isForegroundService()) {
+            /*
+             * The call service keeps the call running while the activity is in the background,
+             * but the room listeners still belong to this activity. A destroyed activity could
+             * neither be reattached to the room nor closed from JS, so the call ends with it even
+             * when the system is the one destroying it.
+             */
+            if (localVideoTrack != null) {
+                localVideoTrack.removeRenderer(thumbnailVideoView);
+            }
+            if (room != null && room.getState() != Room.State.DISCONNECTED) {
+                room.disconnect();
+                disconnectedFromOnDestroy = true;
+            }
+            // Releases the local tracks
+            TwilioVideoCallService.stop(this);
+            publishEvent(CallEvent.CLOSED);
+            room = null;
+            localAudioTrack = null;
+            localVideoTrack = null;
+            TwilioVideoManager.getInstance().removeActionObserver(this);
+            super.onDestroy();
+            return;
+        }
+
         /*
          * Always disconnect from the room before leaving the Activity to
          * ensure any memory allocated to the Room resource is freed.
@@ -279,11 +372,31 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
 
         publishEvent(CallEvent.CLOSED);
 
-        TwilioVideoManager.getInstance().setActionListenerObserver(null);
+        TwilioVideoManager.getInstance().removeActionObserver(this);
 
         super.onDestroy();
     }
 
+    /*
+     * Used instead of releasing the local video track when the call service keeps the call alive
+     * in the background. The track stays published, so there is no camera reopen or renegotiation
+     * when coming back.
+     */
+    private void pauseLocalVideo() {
+        if (localVideoTrack == null || localVideoPaused) { return; }
+        localVideoPaused = true;
+        localVideoEnabledBeforePause = localVideoTrack.isEnabled();
+        localVideoTrack.removeRenderer(thumbnailVideoView);
+        localVideoTrack.enable(false);
+    }
+
+    private void resumeLocalVideo() {
+        if (localVideoTrack == null || !localVideoPaused) { return; }
+        localVideoPaused = false;
+        localVideoTrack.enable(localVideoEnabledBeforePause);
+        localVideoTrack.addRenderer(thumbnailVideoView);
+    }
+
     private boolean hasPermissionForCameraAndMicrophone() {
         int resultCamera = ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA);
         int resultMic = ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO);
@@ -300,20 +413,35 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
     }
 
     private void createAudioAndVideoTracks() {
+        /*
+         * Adopt the local media built by prepareRoom, if any
+         */
+        PreparedLocalMedia prepared = PreparedLocalMedia.take();
+        if (prepared != null) {
+            localAudioTrack = prepared.getLocalAudioTrack();
+            cameraCapturer = prepared.getCameraCapturer();
+            localVideoTrack = prepared.getLocalVideoTrack();
+            captureQualityController.onTrackCreatedWith(prepared.getCaptureConstraints());
+            markSetupMilestone(CallSetupTimings.Milestone.LOCAL_TRACKS_CREATED);
+            this.moveLocalVideoToThumbnailView();
+            return;
+        }
+
         // Share your microphone
         localAudioTrack = LocalAudioTrack.create(this, true, LOCAL_AUDIO_TRACK_NAME);
 
         // Share your camera
-        cameraCapturer = new CameraCapturerCompat(this, getAvailableCameraSource());
-        localVideoTrack = LocalVideoTrack.create(this,
+        cameraCapturer = new CameraCapturerCompat(this, getAvailableCameraSource(this));
+        localVideoTrack = CaptureQualityController.createLocalVideoTrack(this,
                 true,
                 cameraCapturer.getVideoCapturer(),
-                LOCAL_VIDEO_TRACK_NAME);
+                captureQualityController.getCaptureConstraints());
+        markSetupMilestone(CallSetupTimings.Milestone.LOCAL_TRACKS_CREATED);
         this.moveLocalVideoToThumbnailView();
     }
 
-    private CameraSource getAvailableCameraSource() {
-        return (CameraCapturer.isSourceAvailable(CameraSource.FRONT_CAMERA)) ?
+    static CameraSource getAvailableCameraSource(Context context) {
+        return (CameraCapabilities.get(context).isSourceAvailable(CameraSource.FRONT_CAMERA)) ?
                 (CameraSource.FRONT_CAMERA) :
                 (CameraSource.BACK_CAMERA);
     }
@@ -338,7 +466,29 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
             connectOptionsBuilder.videoTracks(Collections.singletonList(localVideoTrack));
         }
 
-        room = Video.connect(this, connectOptionsBuilder.build(), roomListener());
+        if (config.getQualityProfile() != null) {
+            connectOptionsBuilder.encodingParameters(CaptureQualityController.toEncodingParameters(config.getQualityProfile()));
+        }
+
+        connectOptionsBuilder.preferVideoCodecs(CodecPreferences.videoCodecs(this, config));
+        List<AudioCodec> audioCodecs = CodecPreferences.audioCodecs(config);
+        if (audioCodecs != null) {
+            connectOptionsBuilder.preferAudioCodecs(audioCodecs);
+        }
+
+        markSetupMilestone(CallSetupTimings.Milestone.CONNECT_STARTED);
+        TwilioRoomEngine roomEngine = new TwilioRoomEngine(participantRegistry, roomListener());
+        if (config.isRecordRoomTrace()) {
+            roomCallbacks = new RoomTraceRecorder(roomSession, new File(getFilesDir(), RoomTraceRecorder.FILE_NAME),
+                    config);
+        }
+        roomEngine.setListener(roomCallbacks);
+        room = Video.connect(this, connectOptionsBuilder.build(), roomEngine);
+
+        if (config.isForegroundService()) {
+            TwilioVideoCallService.start(this, config);
+            TwilioVideoCallService.attachCall(room, localAudioTrack, localVideoTrack);
+        }
     }
 
     /*
@@ -373,201 +523,6 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
         // switchAudioActionFab.setOnClickListener(switchAudioClickListener());
     }
 
-    /*
-     * Build all of the side views (should ideally be refactored to be dynamically generated as needed)
-     */
-    private void prebuildSideViews() {
-        /*
-        FrameLayout vc = findViewById(FAKE_R.getId("video_container"));
-        for (int i=1; i<=numberActiveVideoTracks; i++) {
-            VideoView newView = new VideoView(this);
-            float sideViewHeight = convertDpToPixel(96, this);
-            float sideViewWidth = convertDpToPixel(96, this);
-            LinearLayout.LayoutParams params = new LinearLayout.LayoutParams((int) sideViewHeight,(int) sideViewWidth);
-            int newSideViewTop = (int) convertDpToPixel(16,this) + (i*((int) sideViewHeight + (int) convertDpToPixel(16,this)));
-
-            DisplayMetrics displayMetrics = new DisplayMetrics();
-            getWindowManager().getDefaultDisplay().getMetrics(displayMetrics);
-            int screenHeight = displayMetrics.heightPixels;
-            int screenWidth = displayMetrics.widthPixels;
-            int viewLeft = (int) screenWidth - (int) sideViewWidth - (int) convertDpToPixel(16,this);
-            params.setMargins(viewLeft, newSideViewTop, (int) convertDpToPixel(16,this),  (int) convertDpToPixel(16,this));
-            newView.setLayoutParams(params);
-//            newView.setVisibility(View.VISIBLE);
-            newView.setVisibility(View.GONE);
-//            localVideoTrack.addRenderer(newView);
-//            newView.setBackgroundColor(Color.BLACK);
-            sideViews.add(newView);
-            vc.addView(newView);
-        }
-        */
-    }
-
-    /*
-     * Full video view cleanup - remove all renderers from all video tracks
-    */
-    private void removeAllVideoRenderers() {
-        // This is the nuclear option, would prefer something a bit more graceful
-        Log.d("remove renderers", "removing all video renderers");
-        for (RemoteParticipant participant:remoteParticipants) {
-            Log.d("loop over participants", "loop over participants");
-            if (participant.getRemoteVideoTracks().size() > 0) {
-                Log.d("participant information", participant.getRemoteVideoTracks().size()+" video tracks");
-                List<RemoteVideoTrackPublication> remoteVideoTrackPublications = participant.getRemoteVideoTracks();
-                for (RemoteVideoTrackPublication remotevideoTrackPublication : remoteVideoTrackPublications) {
-                    Log.d("loop over publications", "loop over publications");
-                    if (remotevideoTrackPublication.isTrackSubscribed()) {
-                        VideoTrack videoTrack = remotevideoTrackPublication.getRemoteVideoTrack();
-                        Log.d("videoTrack", videoTrack.getName());
-                        for (VideoView view : sideViews) {
-                            Log.d("remove side views", "remove side views");
-                            videoTrack.removeRenderer(view);
-                        }
-                    }
-                }
-            }
-        }
-        for (VideoView view: sideViews) {
-            Log.d("hide side views", "hide side views");
-            view.setVisibility(View.GONE);
-        }
-
-        Log.d("remove primary view", "remove primary view");
-        if (mainViewVideoTrack != null) {
-            mainViewVideoTrack.removeRenderer(primaryVideoView);
-            mainViewVideoTrack = null;
-            primaryVideoView.setBackgroundColor(Color.BLACK);
-//            primaryVideoView.setVisibility(View.GONE);
-        }
-    }
-
-    private void adjustSideViews() {
-        Log.i("code branch", "adjustSideViews");
-        Log.i("side views", "number side views: "+sideViews.size());
-        Log.i("side views", "number particpants: "+remoteParticipants.size());
-        if (sideViews.size() < remoteParticipants.size()) {
-            increaseSideViews();
-        }
-        if (sideViews.size() > remoteParticipants.size()) {
-            decreaseSideViews();
-        }
-    }
-
-    private void increaseSideViews() {
-        FrameLayout vc = findViewById(FAKE_R.getId("video_container"));
-        Log.i("side views", "number side views: "+sideViews.size());
-        Log.i("side views", "number particpants: "+remoteParticipants.size());
-        for (int i=sideViews.size()+1; i<=remoteParticipants.size(); i++) {
-            Log.i("side views", "new side view: "+i);
-            VideoView newView = new VideoView(this);
-            float sideViewHeight = convertDpToPixel(96, this);
-            float sideViewWidth = convertDpToPixel(96, this);
-            LinearLayout.LayoutParams params = new LinearLayout.LayoutParams((int) sideViewHeight,(int) sideViewWidth);
-            int newSideViewTop = (int) convertDpToPixel(16,this) + (i*((int) sideViewHeight + (int) convertDpToPixel(16,this)));
-
-            DisplayMetrics displayMetrics = new DisplayMetrics();
-            getWindowManager().getDefaultDisplay().getMetrics(displayMetrics);
-            int screenHeight = displayMetrics.heightPixels;
-            int screenWidth = displayMetrics.widthPixels;
-            int viewLeft = (int) screenWidth - (int) sideViewWidth - (int) convertDpToPixel(16,this);
-            params.setMargins(viewLeft, newSideViewTop, (int) convertDpToPixel(16,this),  (int) convertDpToPixel(16,this));
-            newView.setLayoutParams(params);
-//            newView.setVisibility(View.VISIBLE);
-            newView.setVisibility(View.GONE);
-//            localVideoTrack.addRenderer(newView);
-//            newView.setBackgroundColor(Color.BLACK);
-            sideViews.add(newView);
-            vc.addView(newView);
-        }
-    }
-
-    private void decreaseSideViews() {
-        FrameLayout vc = findViewById(FAKE_R.getId("video_container"));
-        for (int i=sideViews.size(); i<=remoteParticipants.size(); i--) {
-            VideoView sideView = sideViews.get(i);
-            vc.removeView(sideView);
-        }
-    }
-
-    private void populateVideoViews() {
-        int i = 0;
-        VideoTrack lastParticipantVideoTrack = null;
-        int lastViewIndex = 0;
-        primaryVideoView.setMirror(false);
-        newMainViewVideoTrack = null;
-
-        for (RemoteParticipant participant: remoteParticipants) {
-            if (participant != mainViewParticipant) {
-                // get the track that is not named 'screen'
-                for (RemoteVideoTrackPublication remoteVideoTrackPublication: participant.getRemoteVideoTracks()) {
-                    /*
-                     * Only render video tracks that are subscribed to
-                     */
-                    if (remoteVideoTrackPublication.isTrackSubscribed()) {
-                        VideoTrack videoTrack = remoteVideoTrackPublication.getVideoTrack();
-                        Log.i("video track", "video track name: |"+videoTrack.getName()+"|");
-                        Log.i("side view", "Side view: "+i);
-                        if (videoTrack.getName().equals("screen")) {
-                            Log.i("screen", "send screen to main view");
-                            newMainViewVideoTrack = videoTrack;
-                        } else {
-                            Log.i("screen", "not screen share, send to side view");
-                            videoTrack.addRenderer(sideViews.get(i));
-                            sideViews.get(i).setVisibility(View.VISIBLE);
-                            if (videoTrack.isEnabled()){
-                                sideViews.get(i).setBackgroundColor(Color.TRANSPARENT);
-                            } else {
-                                sideViews.get(i).setBackgroundColor(Color.BLACK);
-                            }
-                            lastParticipantVideoTrack = videoTrack;
-                        }
-                        // Inside here, you could also check to see if somebody is the dominant speaker (after upgrading to a library that supports it)
-                    }
-                }
-            }
-            lastViewIndex = i;
-            i++;
-        }
-
-        // For simplicity's sake, if we did not set the mainViewVideoTrack, then just pull the video track
-        // from the last remoteParticipant and use it. You could also pop the first participant off and
-        // do the same thing, but this seemed easier.
-
-        if (newMainViewVideoTrack == null && lastParticipantVideoTrack != null) {
-            Log.d("last participant", "video track name: "+ lastParticipantVideoTrack.getName());
-            Log.d("lastviewindex", "last view index: "+lastViewIndex);
-            lastParticipantVideoTrack.removeRenderer(sideViews.get(lastViewIndex));
-            sideViews.get(lastViewIndex).setVisibility(View.GONE);
-            newMainViewVideoTrack = lastParticipantVideoTrack;
-            Log.d("mainViewVideoTrack", "set video track name= "+ newMainViewVideoTrack.getName());
-        }
-
-//        Log.d("mainViewVideoTrack", "video track name: "+ mainViewVideoTrack.getName());
-        if (newMainViewVideoTrack != null) {
-            Log.d("newMainViewVideoTrack", "main video track not null");
-            Log.d("newMainViewVideoTrack", "video track name: "+ newMainViewVideoTrack.getName());
-            if (mainViewVideoTrack != null && newMainViewVideoTrack != mainViewVideoTrack) {
-                if (mainViewVideoTrack.getRenderers().size() > 0) {
-                    mainViewVideoTrack.removeRenderer(primaryVideoView);
-                }
-                VideoView newView = sideViews.get(sideViews.size());
-                VideoTrack newVideoTrack = mainViewVideoTrack;
-                newVideoTrack.addRenderer(newView);
-                newView.setVisibility(View.VISIBLE);
-            }
-            mainViewVideoTrack = newMainViewVideoTrack;
-            mainViewVideoTrack.addRenderer(primaryVideoView);
-            primaryVideoView.setVisibility(View.VISIBLE);
-            if (mainViewVideoTrack.isEnabled()) {
-                primaryVideoView.setBackgroundColor(Color.TRANSPARENT);
-            } else {
-                primaryVideoView.setBackgroundColor(Color.BLACK);
-            }
-
-        }
-
-    }
-
     /*
      * The actions performed during disconnect.
      */
@@ -581,71 +536,6 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
         callEndText.setOnClickListener(disconnectClickListener());
     }
 
-    private void resetAndRebuildVideoViews() {
-        removeAllVideoRenderers();
-        populateVideoViews();
-    }
-
-    /*
-     * Called when participant joins the room
-     */
-    private void addRemoteParticipant(RemoteParticipant participant) {
-        participantIdentity = participant.getIdentity();
-
-        remoteParticipants.add(participant);
-        adjustSideViews();
-
-        /*
-         * Start listening for participant media events
-         */
-        participant.setListener(remoteParticipantListener());
-
-        /*
-         * Add participant renderer
-        if (participant.getRemoteVideoTracks().size() > 0) {
-            RemoteVideoTrackPublication remoteVideoTrackPublication =
-                    participant.getRemoteVideoTracks().get(0);
-
-            /*
-             * Only render video tracks that are subscribed to
-
-            if (remoteVideoTrackPublication.isTrackSubscribed()) {
-                addRemoteParticipantVideo(remoteVideoTrackPublication.getRemoteVideoTrack());
-            }
-        }
-
-        */
-    }
-
-    /*
-     * Set primary view as renderer for participant video track
-     */
-    @SuppressLint("LongLogTag")
-    private void addRemoteParticipantVideo(VideoTrack videoTrack) {
-        /*
-        boolean screenShare = false;
-
-        Log.d("originalRemoteTrack", String.valueOf(originalRemoteTrack));
-        if (originalRemoteTrack == null) {
-            originalRemoteTrack = videoTrack;
-        } else {
-            originalRemoteTrack.removeRenderer(primaryVideoView);
-            screenShare = true;
-            originalRemoteTrack = null;
-        }
-        Log.d("videoTrack", String.valueOf(videoTrack));
-        Log.d("videoTrack localVideoTrack", String.valueOf(localVideoTrack));
-        Log.d("videoTrack primaryVideoView", String.valueOf(primaryVideoView));
-        primaryVideoView.setMirror(false);
-        if (screenShare) {
-            // originalRemoteTrack.addRenderer(primaryVideoView);
-        }
-        videoTrack.addRenderer(primaryVideoView);
-        primaryVideoView.setVisibility(View.VISIBLE);
-
-     */
-    }
-
     private void moveLocalVideoToThumbnailView() {
         if (thumbnailVideoView.getVisibility() == View.GONE) {
             thumbnailVideoView.setVisibility(View.VISIBLE);
@@ -661,41 +551,26 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
         }
     }
 
-    /*
-     * Called when participant leaves the room
-     */
-    private void removeRemoteParticipant(RemoteParticipant participant) {
-        if (!participant.getIdentity().equals(participantIdentity)) {
-            return;
+    private void startStatsSampling(Room room) {
+        long intervalMs = config.getStatsIntervalMs();
+        if (config.isAudioLevelSampling()) {
+            // Audio levels need a faster cadence than the STATS events
+            intervalMs = intervalMs > 0
+                    ? Math.min(intervalMs, AudioLevelMonitor.SAMPLE_INTERVAL_MS)
+                    : AudioLevelMonitor.SAMPLE_INTERVAL_MS;
+            statsSampler.addReportsListener(audioLevelMonitor);
         }
-
-        remoteParticipants.remove(participant);
-
-        adjustSideViews();
-        /*
-         * Remove participant renderer
-         */
-        /*
-        if (participant.getRemoteVideoTracks().size() > 0) {
-            RemoteVideoTrackPublication remoteVideoTrackPublication =
-                    participant.getRemoteVideoTracks().get(0);
-
-            /*
-             * Remove video only if subscribed to participant track
-            if (remoteVideoTrackPublication.isTrackSubscribed()) {
-                removeParticipantVideo(remoteVideoTrackPublication.getRemoteVideoTrack());
+        boolean sampling = intervalMs > 0;
+        if (config.isSimulcast()) {
+            // Fed by the sampler when it runs, so the room is only polled once
+            publishingLayersReporter.start(room, !sampling);
+            if (sampling) {
+                statsSampler.addReportsListener(publishingLayersReporter);
             }
         }
-
-         */
-    }
-
-    private void removeParticipantVideo(VideoTrack videoTrack) {
-        /*
-        primaryVideoView.setVisibility(View.GONE);
-        videoTrack.removeRenderer(primaryVideoView);
-
-         */
+        if (sampling) {
+            statsSampler.start(room, intervalMs, config.getStatsIntervalMs());
+        }
     }
 
     /*
@@ -706,20 +581,16 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
             @Override
             public void onConnected(Room room) {
                 localParticipant = room.getLocalParticipant();
+                markSetupMilestone(CallSetupTimings.Milestone.ROOM_CONNECTED);
                 publishEvent(CallEvent.CONNECTED);
-
-                final List<RemoteParticipant> remoteParticipants = room.getRemoteParticipants();
-                if (remoteParticipants != null && !remoteParticipants.isEmpty()) {
-                    for (RemoteParticipant participant: remoteParticipants) {
-                        addRemoteParticipant(participant);
-                    }
-//                    addRemoteParticipant(remoteParticipants.get(0));
-                }
+                // A prepared track at another tier is replaced even if nobody joins or leaves
+                captureQualityController.onParticipantCountChanged(room.getRemoteParticipants().size());
+                startStatsSampling(room);
             }
 
             @Override
             public void onConnectFailure(Room room, TwilioException e) {
-                publishEvent(CallEvent.CONNECT_FAILURE);
+                publishEvent(CallEvent.CONNECT_FAILURE, dumpCallLog(null));
                 TwilioVideoActivity.this.handleConnectionError(config.getI18nConnectionError());
             }
 
@@ -737,6 +608,9 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
             public void onDisconnected(Room room, TwilioException e) {
                 localParticipant = null;
                 TwilioVideoActivity.this.room = null;
+                publishingLayersReporter.stop();
+                statsSampler.stop();
+                audioLevelMonitor.reset();
                 // Only reinitialize the UI if disconnect was not called from onDestroy()
                 if (!disconnectedFromOnDestroy && e != null) {
                     JSONObject data = null;
@@ -747,7 +621,7 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
                     } catch (JSONException e1) {
                         Log.e(TwilioVideo.TAG, "onDisconnected. Error sending error data");
                     }
-                    publishEvent(CallEvent.DISCONNECTED_WITH_ERROR, data);
+                    publishEvent(CallEvent.DISCONNECTED_WITH_ERROR, dumpCallLog(data));
                     TwilioVideoActivity.this.handleConnectionError(config.getI18nDisconnectedWithError());
                 } else {
                     publishEvent(CallEvent.DISCONNECTED);
@@ -756,14 +630,12 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
 
             @Override
             public void onParticipantConnected(Room room, RemoteParticipant participant) {
-                publishEvent(CallEvent.PARTICIPANT_CONNECTED);
-                addRemoteParticipant(participant);
+                // Reported to the room session by the engine
             }
 
             @Override
             public void onParticipantDisconnected(Room room, RemoteParticipant participant) {
-                publishEvent(CallEvent.PARTICIPANT_DISCONNECTED);
-                removeRemoteParticipant(participant);
+                // Reported to the room session by the engine
             }
 
             @Override
@@ -772,7 +644,7 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
                  * Indicates when media shared to a Room is being recorded. Note that
                  * recording is only available in our Group Rooms developer preview.
                  */
-                Log.d(TwilioVideo.TAG, "onRecordingStarted");
+                CallLog.d("onRecordingStarted").log();
             }
 
             @Override
@@ -781,220 +653,37 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
                  * Indicates when media shared to a Room is no longer being recorded. Note that
                  * recording is only available in our Group Rooms developer preview.
                  */
-                Log.d(TwilioVideo.TAG, "onRecordingStopped");
+                CallLog.d("onRecordingStopped").log();
             }
         };
     }
 
-    private RemoteParticipant.Listener remoteParticipantListener() {
-        return new RemoteParticipant.Listener() {
-
-            @Override
-            public void onAudioTrackPublished(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication) {
-                Log.i(TwilioVideo.TAG, String.format("onAudioTrackPublished: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteAudioTrackPublication: sid=%s, enabled=%b, " +
-                                "subscribed=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteAudioTrackPublication.getTrackSid(),
-                        remoteAudioTrackPublication.isTrackEnabled(),
-                        remoteAudioTrackPublication.isTrackSubscribed(),
-                        remoteAudioTrackPublication.getTrackName()));
-            }
-
-            @Override
-            public void onAudioTrackUnpublished(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication) {
-                Log.i(TwilioVideo.TAG, String.format("onAudioTrackUnpublished: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteAudioTrackPublication: sid=%s, enabled=%b, " +
-                                "subscribed=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteAudioTrackPublication.getTrackSid(),
-                        remoteAudioTrackPublication.isTrackEnabled(),
-                        remoteAudioTrackPublication.isTrackSubscribed(),
-                        remoteAudioTrackPublication.getTrackName()));
-            }
-
-            @Override
-            public void onAudioTrackSubscribed(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication, RemoteAudioTrack remoteAudioTrack) {
-                Log.i(TwilioVideo.TAG, String.format("onAudioTrackSubscribed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteAudioTrack: enabled=%b, playbackEnabled=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteAudioTrack.isEnabled(),
-                        remoteAudioTrack.isPlaybackEnabled(),
-                        remoteAudioTrack.getName()));
-                publishEvent(CallEvent.AUDIO_TRACK_ADDED);
-            }
-
-            @Override
-            public void onAudioTrackSubscriptionFailed(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication, TwilioException twilioException) {
-                Log.i(TwilioVideo.TAG, String.format("onAudioTrackSubscriptionFailed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteAudioTrackPublication: sid=%b, name=%s]" +
-                                "[TwilioException: code=%d, message=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteAudioTrackPublication.getTrackSid(),
-                        remoteAudioTrackPublication.getTrackName(),
-                        twilioException.getCode(),
-                        twilioException.getMessage()));
-            }
-
-            @Override
-            public void onAudioTrackUnsubscribed(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication, RemoteAudioTrack remoteAudioTrack) {
-                Log.i(TwilioVideo.TAG, String.format("onAudioTrackUnsubscribed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteAudioTrack: enabled=%b, playbackEnabled=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteAudioTrack.isEnabled(),
-                        remoteAudioTrack.isPlaybackEnabled(),
-                        remoteAudioTrack.getName()));
-                publishEvent(CallEvent.AUDIO_TRACK_REMOVED);
-            }
-
-            @Override
-            public void onVideoTrackPublished(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication) {
-                Log.i(TwilioVideo.TAG, String.format("onVideoTrackPublished: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteVideoTrackPublication: sid=%s, enabled=%b, " +
-                                "subscribed=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteVideoTrackPublication.getTrackSid(),
-                        remoteVideoTrackPublication.isTrackEnabled(),
-                        remoteVideoTrackPublication.isTrackSubscribed(),
-                        remoteVideoTrackPublication.getTrackName()));
-            }
-
-            @Override
-            public void onVideoTrackUnpublished(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication) {
-                Log.i(TwilioVideo.TAG, String.format("onVideoTrackUnpublished: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteVideoTrackPublication: sid=%s, enabled=%b, " +
-                                "subscribed=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteVideoTrackPublication.getTrackSid(),
-                        remoteVideoTrackPublication.isTrackEnabled(),
-                        remoteVideoTrackPublication.isTrackSubscribed(),
-                        remoteVideoTrackPublication.getTrackName()));
-            }
-
-            @Override
-            public void onVideoTrackSubscribed(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication, RemoteVideoTrack remoteVideoTrack) {
-                Log.i(TwilioVideo.TAG, String.format("onVideoTrackSubscribed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteVideoTrack: enabled=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteVideoTrack.isEnabled(),
-                        remoteVideoTrack.getName()));
-                publishEvent(CallEvent.VIDEO_TRACK_ADDED);
-//                addRemoteParticipantVideo(remoteVideoTrack);
-                resetAndRebuildVideoViews();
-
-            }
-
-            @Override
-            public void onVideoTrackSubscriptionFailed(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication, TwilioException twilioException) {
-                Log.i(TwilioVideo.TAG, String.format("onVideoTrackSubscriptionFailed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteVideoTrackPublication: sid=%b, name=%s]" +
-                                "[TwilioException: code=%d, message=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteVideoTrackPublication.getTrackSid(),
-                        remoteVideoTrackPublication.getTrackName(),
-                        twilioException.getCode(),
-                        twilioException.getMessage()));
-            }
-
-            @Override
-            public void onVideoTrackUnsubscribed(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication, RemoteVideoTrack remoteVideoTrack) {
-                Log.i(TwilioVideo.TAG, String.format("onVideoTrackUnsubscribed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteVideoTrack: enabled=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteVideoTrack.isEnabled(),
-                        remoteVideoTrack.getName()));
-                publishEvent(CallEvent.VIDEO_TRACK_REMOVED);
-//                removeParticipantVideo(remoteVideoTrack);
-                resetAndRebuildVideoViews();
-            }
-
-            @Override
-            public void onDataTrackPublished(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication) {
-                Log.i(TwilioVideo.TAG, String.format("onDataTrackPublished: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteDataTrackPublication: sid=%s, enabled=%b, " +
-                                "subscribed=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteDataTrackPublication.getTrackSid(),
-                        remoteDataTrackPublication.isTrackEnabled(),
-                        remoteDataTrackPublication.isTrackSubscribed(),
-                        remoteDataTrackPublication.getTrackName()));
-            }
-
-            @Override
-            public void onDataTrackUnpublished(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication) {
-                Log.i(TwilioVideo.TAG, String.format("onDataTrackUnpublished: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteDataTrackPublication: sid=%s, enabled=%b, " +
-                                "subscribed=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteDataTrackPublication.getTrackSid(),
-                        remoteDataTrackPublication.isTrackEnabled(),
-                        remoteDataTrackPublication.isTrackSubscribed(),
-                        remoteDataTrackPublication.getTrackName()));
-            }
-
-            @Override
-            public void onDataTrackSubscribed(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication, RemoteDataTrack remoteDataTrack) {
-                Log.i(TwilioVideo.TAG, String.format("onDataTrackSubscribed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteDataTrack: enabled=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteDataTrack.isEnabled(),
-                        remoteDataTrack.getName()));
-            }
-
-            @Override
-            public void onDataTrackSubscriptionFailed(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication, TwilioException twilioException) {
-                Log.i(TwilioVideo.TAG, String.format("onDataTrackSubscriptionFailed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteDataTrackPublication: sid=%b, name=%s]" +
-                                "[TwilioException: code=%d, message=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteDataTrackPublication.getTrackSid(),
-                        remoteDataTrackPublication.getTrackName(),
-                        twilioException.getCode(),
-                        twilioException.getMessage()));
-            }
-
-            @Override
-            public void onDataTrackUnsubscribed(RemoteParticipant remoteParticipant, RemoteDataTrackPublication remoteDataTrackPublication, RemoteDataTrack remoteDataTrack) {
-                Log.i(TwilioVideo.TAG, String.format("onDataTrackUnsubscribed: " +
-                                "[RemoteParticipant: identity=%s], " +
-                                "[RemoteDataTrack: enabled=%b, name=%s]",
-                        remoteParticipant.getIdentity(),
-                        remoteDataTrack.isEnabled(),
-                        remoteDataTrack.getName()));
-            }
-
+    /*
+     * Participant and track events, applied to the layout and published by the room session
+     */
+    private CallRoomSession.Host roomSessionHost() {
+        return new CallRoomSession.Host() {
             @Override
-            public void onAudioTrackEnabled(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication) {
-
+            public void publishEvent(CallEvent event, JSONObject data) {
+                TwilioVideoActivity.this.publishEvent(event, data);
             }
 
             @Override
-            public void onAudioTrackDisabled(RemoteParticipant remoteParticipant, RemoteAudioTrackPublication remoteAudioTrackPublication) {
-
+            public void onParticipantCountChanged(int participantCount) {
+                captureQualityController.onParticipantCountChanged(participantCount);
             }
 
             @Override
-            public void onVideoTrackEnabled(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication) {
-                resetAndRebuildVideoViews();
+            public void onVideoTrackEnabledChanged(String trackSid, boolean enabled) {
+                layoutReconciler.onTrackEnabledChanged(trackSid, enabled);
             }
 
             @Override
-            public void onVideoTrackDisabled(RemoteParticipant remoteParticipant, RemoteVideoTrackPublication remoteVideoTrackPublication) {
-                resetAndRebuildVideoViews();
+            public void onAudioPlaybackChanged(String trackSid, boolean enabled) {
+                RemoteAudioTrack track = participantRegistry.getAudioTrack(trackSid);
+                if (track != null) {
+                    track.enablePlayback(enabled);
+                }
             }
         };
     }
@@ -1180,6 +869,19 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
         finish();
     }
 
+    @Override
+    public void onQualityProfileChanged(final QualityProfile qualityProfile) {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                captureQualityController.setQualityProfile(qualityProfile);
+                if (localParticipant != null) {
+                    localParticipant.setEncodingParameters(CaptureQualityController.toEncodingParameters(qualityProfile));
+                }
+            }
+        });
+    }
+
     @Override
     public void finish() {
         configureAudio(false);
@@ -1187,6 +889,25 @@ public class TwilioVideoActivity extends AppCompatActivity implements CallAction
         overridePendingTransition(0, 0);
     }
 
+    /*
+     * Writes the in-memory call log, if enabled, and adds its path to the failure event data
+     */
+    private JSONObject dumpCallLog(JSONObject data) {
+        File logFile = CallLog.dump(getFilesDir());
+        if (logFile == null) { return data; }
+        if (data == null) { data = new JSONObject(); }
+        try {
+            data.put("logFile", logFile.getAbsolutePath());
+        } catch (JSONException e) {
+            Log.e(TwilioVideo.TAG, "Error adding the call log to the event data");
+        }
+        return data;
+    }
+
+    private void markSetupMilestone(CallSetupTimings.Milestone milestone) {
+        TwilioVideoManager.getInstance().getCallSetupTimings().mark(milestone);
+    }
+
     private void publishEvent(CallEvent event) {
         TwilioVideoManager.getInstance().publishEvent(event);
     }
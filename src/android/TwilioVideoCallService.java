@@ -0,0 +1,119 @@
+package org.apache.cordova.twiliovideo;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+import android.os.IBinder;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.twilio.video.LocalAudioTrack;
+import com.twilio.video.LocalVideoTrack;
+import com.twilio.video.Room;
+
+/*
+ * Foreground service that keeps the process in the foreground, with an ongoing call notification,
+ * while the call activity is in the background when the foregroundService option is set. The
+ * activity still owns the Room, its listeners and the local media. It only pauses the local video
+ * in onPause instead of releasing it, and the call ends when it is destroyed. The service keeps
+ * references to the call so that being stopped disconnects the room and releases the local
+ * tracks.
+ */
+public class TwilioVideoCallService extends Service {
+
+    private static final int NOTIFICATION_ID = 7301;
+    private static final String NOTIFICATION_CHANNEL_ID = "twilio_video_call";
+    private static final String EXTRA_NOTIFICATION_TEXT = "notificationText";
+
+    private static Room room;
+    private static LocalAudioTrack localAudioTrack;
+    private static LocalVideoTrack localVideoTrack;
+
+    public static void start(Context context, CallConfig config) {
+        Intent intent = new Intent(context, TwilioVideoCallService.class);
+        intent.putExtra(EXTRA_NOTIFICATION_TEXT, config.getI18nOngoingCall());
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    public static void stop(Context context) {
+        context.stopService(new Intent(context, TwilioVideoCallService.class));
+    }
+
+    /*
+     * Released by the service when it is stopped
+     */
+    public static synchronized void attachCall(Room callRoom, LocalAudioTrack audioTrack, LocalVideoTrack videoTrack) {
+        room = callRoom;
+        localAudioTrack = audioTrack;
+        localVideoTrack = videoTrack;
+    }
+
+    public static synchronized void setLocalVideoTrack(LocalVideoTrack videoTrack) {
+        localVideoTrack = videoTrack;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        String text = intent != null ? intent.getStringExtra(EXTRA_NOTIFICATION_TEXT) : null;
+        Notification notification = buildNotification(text);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            startForeground(NOTIFICATION_ID, notification,
+                    ServiceInfo.FOREGROUND_SERVICE_TYPE_CAMERA | ServiceInfo.FOREGROUND_SERVICE_TYPE_MICROPHONE);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        releaseCall();
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private static synchronized void releaseCall() {
+        if (room != null && room.getState() != Room.State.DISCONNECTED) {
+            room.disconnect();
+        }
+        room = null;
+        if (localAudioTrack != null) {
+            localAudioTrack.release();
+            localAudioTrack = null;
+        }
+        if (localVideoTrack != null) {
+            localVideoTrack.release();
+            localVideoTrack = null;
+        }
+    }
+
+    private Notification buildNotification(String text) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(NOTIFICATION_CHANNEL_ID,
+                    text, NotificationManager.IMPORTANCE_LOW);
+            ((NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE)).createNotificationChannel(channel);
+        }
+
+        Intent launchIntent = getPackageManager().getLaunchIntentForPackage(getPackageName());
+        PendingIntent contentIntent = launchIntent == null ? null : PendingIntent.getActivity(this, 0,
+                launchIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        return new NotificationCompat.Builder(this, NOTIFICATION_CHANNEL_ID)
+                .setSmallIcon(FakeR.getResourceId(this, "drawable", "ic_call_black_24dp"))
+                .setContentTitle(text)
+                .setContentIntent(contentIntent)
+                .setOngoing(true)
+                .setCategory(NotificationCompat.CATEGORY_CALL)
+                .build();
+    }
+}
@@ -1,52 +1,155 @@
 package org.apache.cordova.twiliovideo;
 
+import android.util.Log;
+
 import org.json.JSONObject;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class TwilioVideoManager {
 
-    private CallEventObserver eventListener;
-    private CallActionObserver actionListener;
-    private static TwilioVideoManager instance;
+    private static final int EVENT_HISTORY_SIZE = 128;
+
+    private final List<CallActionObserver> actionObservers = new CopyOnWriteArrayList<>();
+    private volatile CallEventBatcher eventBatcher;
+    private volatile JSONObject latestStats;
+    private final CallSetupTimings callSetupTimings = new CallSetupTimings();
+    private final CallEventBus eventBus = new CallEventBus(
+            EVENT_HISTORY_SIZE,
+            CallConfig.EVENT_QUEUE_CAPACITY_DEF,
+            CallEventDispatcher.OverflowPolicy.DROP_OLDEST);
+
+    private TwilioVideoManager() {
+        eventBus.setFailureHandler(new CallEventBus.FailureHandler() {
+            @Override
+            public void onObserverFailed(RuntimeException e) {
+                Log.e(TwilioVideo.TAG, "Event observer failed", e);
+            }
+        });
+        eventBus.setStage(new CallEventBus.Stage() {
+            @Override
+            public boolean offer(CallEventRecord record) {
+                CallEventBatcher eventBatcher = TwilioVideoManager.this.eventBatcher;
+                if (eventBatcher == null || !eventBatcher.isEnabled()) { return false; }
+                eventBatcher.add(record);
+                return true;
+            }
+        });
+    }
+
+    private static class InstanceHolder {
+        private static final TwilioVideoManager INSTANCE = new TwilioVideoManager();
+    }
 
     public static TwilioVideoManager getInstance() {
-        if (instance == null) {
-            instance = new TwilioVideoManager();
+        return InstanceHolder.INSTANCE;
+    }
+
+    public void addEventObserver(CallEventObserver observer) {
+        eventBus.addObserver(observer);
+    }
+
+    /*
+     * Registers the observer and first replays every event still in the history whose sequence
+     * is greater than the given one, see CallEventBus
+     */
+    public void addEventObserver(CallEventObserver observer, long sinceSequence) {
+        eventBus.addObserver(observer, sinceSequence);
+    }
+
+    public void removeEventObserver(CallEventObserver observer) {
+        eventBus.removeObserver(observer);
+    }
+
+    public long getLastEventSequence() {
+        return eventBus.getLastSequence();
+    }
+
+    public void addActionObserver(CallActionObserver observer) {
+        if (observer != null) {
+            actionObservers.add(observer);
+        }
+    }
+
+    public void removeActionObserver(CallActionObserver observer) {
+        actionObservers.remove(observer);
+    }
+
+    /*
+     * Buffers published events and delivers them in batches, see CallEventBatcher
+     */
+    public synchronized void setEventBatching(CallEventBatchMode mode, long windowMs) {
+        if (eventBatcher != null) {
+            eventBatcher.flush();
         }
-        return instance;
+        eventBatcher = new CallEventBatcher(mode, windowMs, new CallEventBatcher.Sink() {
+            @Override
+            public void deliver(List<CallEventRecord> records) {
+                eventBus.deliver(records);
+            }
+        });
+    }
+
+    public void setEventQueuePolicy(int capacity, CallEventDispatcher.OverflowPolicy overflowPolicy) {
+        eventBus.getDispatcher().setCapacity(capacity);
+        eventBus.getDispatcher().setOverflowPolicy(overflowPolicy);
     }
 
-    public void setEventObserver(CallEventObserver listener) {
-        this.eventListener = listener;
+    public int getEventQueueDepth() {
+        return eventBus.getDispatcher().getQueueDepth();
     }
 
-    public void setActionListenerObserver(CallActionObserver listener) {
-        this.actionListener = listener;
+    public long getDroppedEventCount() {
+        return eventBus.getDispatcher().getDroppedCount();
+    }
+
+    public long getCollapsedEventCount() {
+        return eventBus.getDispatcher().getCollapsedCount();
     }
 
     public void publishEvent(CallEvent event) {
         publishEvent(event, null);
     }
 
+    /*
+     * Events are recorded in the history, then queued and delivered to the observers from the event
+     * dispatcher thread
+     */
     public void publishEvent(CallEvent event, JSONObject data) {
-        if (hasEventListener()) {
-            eventListener.onEvent(event.name(), data);
-        }
+        eventBus.publish(event, data);
     }
 
     public boolean publishDisconnection() {
-        if (hasActionListener()) {
-            actionListener.onDisconnect();
-            return true;
+        boolean handled = false;
+        for (CallActionObserver observer : actionObservers) {
+            observer.onDisconnect();
+            handled = true;
         }
-        return false;
+        return handled;
     }
 
-    private boolean hasEventListener() {
-        return eventListener != null;
+    public CallSetupTimings getCallSetupTimings() {
+        return callSetupTimings;
     }
 
-    private boolean hasActionListener() {
-        return actionListener != null;
+    /*
+     * Latest sample of the stats sampler, if it is running
+     */
+    public void setLatestStats(JSONObject stats) {
+        latestStats = stats;
     }
 
+    public JSONObject getLatestStats() {
+        return latestStats;
+    }
+
+    public boolean publishQualityProfile(QualityProfile qualityProfile) {
+        boolean handled = false;
+        for (CallActionObserver observer : actionObservers) {
+            observer.onQualityProfileChanged(qualityProfile);
+            handled = true;
+        }
+        return handled;
+    }
 }
@@ -0,0 +1,454 @@
+package org.apache.cordova.twiliovideo;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Color;
+import android.media.AudioManager;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.twilio.video.AudioCodec;
+import com.twilio.video.ConnectOptions;
+import com.twilio.video.LocalAudioTrack;
+import com.twilio.video.LocalVideoTrack;
+import com.twilio.video.RemoteAudioTrack;
+import com.twilio.video.RemoteParticipant;
+import com.twilio.video.Room;
+import com.twilio.video.TwilioException;
+import com.twilio.video.Video;
+import com.twilio.video.VideoConstraints;
+import com.twilio.video.VideoView;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Embedded call mode. Instead of starting TwilioVideoActivity, the video container is added as a
+ * native view layered over the Cordova WebView inside the existing activity, and its position
+ * and size are driven from JS. There are no native call controls: the web app provides them and
+ * hangs up through closeRoom.
+ *
+ * All methods must be called on the main thread.
+ */
+public class TwilioVideoOverlay implements CallActionObserver {
+
+    private static final int THUMBNAIL_SIZE_DP = 96;
+    private static final int THUMBNAIL_MARGIN_DP = 16;
+
+    private final Activity activity;
+    private final View webView;
+    private final ViewGroup parent;
+    private final String accessToken;
+    private final String roomId;
+    private final CallConfig config;
+
+    private final ParticipantRegistry participantRegistry = new ParticipantRegistry();
+    private FrameLayout container;
+    private VideoView primaryVideoView;
+    private VideoView thumbnailVideoView;
+    private VideoTilePool sideTilePool;
+    private VideoLayoutReconciler layoutReconciler;
+    private CallRoomSession roomSession;
+    // The session, or the trace recorder in front of it
+    private CallRoomListener roomCallbacks;
+    private CaptureQualityController captureQualityController;
+    private final PublishingLayersReporter publishingLayersReporter = new PublishingLayersReporter();
+    private final StatsSampler statsSampler = new StatsSampler();
+    private AudioLevelMonitor audioLevelMonitor;
+
+    private Room room;
+    private CameraCapturerCompat cameraCapturer;
+    private LocalAudioTrack localAudioTrack;
+    private LocalVideoTrack localVideoTrack;
+    private AudioManager audioManager;
+    private int previousAudioMode;
+    private boolean previousMicrophoneMute;
+    private boolean closed;
+
+    /*
+     * The video container is added to the WebView's parent, on top of the WebView
+     */
+    public TwilioVideoOverlay(Activity activity, View webView, String accessToken, String roomId, CallConfig config) {
+        this.activity = activity;
+        this.webView = webView;
+        this.parent = (ViewGroup) webView.getParent();
+        this.accessToken = accessToken;
+        this.roomId = roomId;
+        this.config = config;
+    }
+
+    public void open(int x, int y, int width, int height) {
+        TwilioVideoManager.getInstance().addActionObserver(this);
+        markSetupMilestone(CallSetupTimings.Milestone.CALL_UI_CREATED);
+        // Checked by the plugin before creating the overlay
+        markSetupMilestone(CallSetupTimings.Milestone.PERMISSIONS_GRANTED);
+        publishEvent(CallEvent.OPENED, null);
+
+        container = new FrameLayout(activity);
+        container.setBackgroundColor(Color.BLACK);
+        primaryVideoView = new VideoView(activity);
+        primaryVideoView.setVisibility(View.GONE);
+        primaryVideoView.setListener(TwilioVideoManager.getInstance().getCallSetupTimings().getFirstRemoteFrameListener());
+        container.addView(primaryVideoView, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+
+        int thumbnailSize = (int) TwilioVideoActivity.convertDpToPixel(THUMBNAIL_SIZE_DP, activity);
+        int thumbnailMargin = (int) TwilioVideoActivity.convertDpToPixel(THUMBNAIL_MARGIN_DP, activity);
+        FrameLayout.LayoutParams thumbnailParams = new FrameLayout.LayoutParams(
+                thumbnailSize, thumbnailSize, Gravity.TOP | Gravity.END);
+        thumbnailParams.setMargins(thumbnailMargin, thumbnailMargin, thumbnailMargin, thumbnailMargin);
+        thumbnailVideoView = new VideoView(activity);
+        thumbnailVideoView.applyZOrder(true);
+        container.addView(thumbnailVideoView, thumbnailParams);
+
+        sideTilePool = new VideoTilePool(activity, container, config.getSideViewPoolSize());
+        layoutReconciler = new VideoLayoutReconciler(primaryVideoView, sideTilePool, participantRegistry,
+                config.getThumbnailMaxFps());
+        roomSession = new CallRoomSession(roomSessionHost(), layoutReconciler, config);
+        roomCallbacks = roomSession;
+        audioLevelMonitor = new AudioLevelMonitor(config.getDominantSpeakerHoldMs(),
+                new AudioLevelMonitor.Listener() {
+                    @Override
+                    public void onDominantSpeakerChanged(String audioTrackSid) {
+                        if (config.isDominantSpeaker()) {
+                            roomCallbacks.onDominantSpeakerChanged(audioTrackSid);
+                        }
+                    }
+
+                    @Override
+                    public void onSpeechDetected(List<String> audioTrackSids) {
+                        roomCallbacks.onSpeechDetected(audioTrackSids, SystemClock.elapsedRealtime());
+                    }
+                });
+        captureQualityController = new CaptureQualityController(config,
+                new CaptureQualityController.Listener() {
+                    @Override
+                    public void onCaptureConstraintsChanged(VideoConstraints constraints) {
+                        // Released while in the background, onResume creates it with the new constraints
+                        if (localVideoTrack == null) { return; }
+                        localVideoTrack = CaptureQualityController.replaceLocalVideoTrack(activity,
+                                room != null ? room.getLocalParticipant() : null,
+                                localVideoTrack,
+                                cameraCapturer.getVideoCapturer(),
+                                constraints,
+                                thumbnailVideoView);
+                    }
+                });
+
+        parent.addView(container);
+        setFrame(x, y, width, height);
+
+        createAudioAndVideoTracks();
+        connectToRoom();
+    }
+
+    /*
+     * Frame in CSS pixels relative to the top left corner of the WebView, as reported by
+     * getBoundingClientRect. The container lives in the WebView's parent, so the WebView's own
+     * offset in it is added.
+     */
+    public void setFrame(int x, int y, int width, int height) {
+        if (container == null) { return; }
+        float density = activity.getResources().getDisplayMetrics().density;
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                (int) (width * density), (int) (height * density));
+        params.leftMargin = webView.getLeft() + (int) (x * density);
+        params.topMargin = webView.getTop() + (int) (y * density);
+        container.setLayoutParams(params);
+    }
+
+    /*
+     * Forwarded from the plugin when the host activity goes in the background. Like
+     * TwilioVideoActivity, the local video track is unpublished and released so the camera stops
+     * capturing and can be used by other applications.
+     */
+    public void onPause() {
+        if (closed || localVideoTrack == null) { return; }
+        if (room != null && room.getLocalParticipant() != null) {
+            room.getLocalParticipant().unpublishTrack(localVideoTrack);
+        }
+        localVideoTrack.release();
+        localVideoTrack = null;
+    }
+
+    /*
+     * Recreates and republishes the local video track released by onPause
+     */
+    public void onResume() {
+        if (closed || localVideoTrack != null || cameraCapturer == null) { return; }
+        localVideoTrack = CaptureQualityController.replaceLocalVideoTrack(activity,
+                room != null ? room.getLocalParticipant() : null,
+                null,
+                cameraCapturer.getVideoCapturer(),
+                captureQualityController.getCaptureConstraints(),
+                thumbnailVideoView);
+    }
+
+    public void close() {
+        if (closed) { return; }
+        closed = true;
+
+        // Disconnected first, so callbacks arriving during teardown still find their participants
+        if (room != null && room.getState() != Room.State.DISCONNECTED) {
+            room.disconnect();
+        }
+        captureQualityController.release();
+        publishingLayersReporter.stop();
+        statsSampler.stop();
+        roomSession.clear();
+        sideTilePool.release();
+        participantRegistry.clear();
+
+        if (localAudioTrack != null) {
+            localAudioTrack.release();
+            localAudioTrack = null;
+        }
+        if (localVideoTrack != null) {
+            localVideoTrack.release();
+            localVideoTrack = null;
+        }
+        configureAudio(false);
+        parent.removeView(container);
+
+        publishEvent(CallEvent.CLOSED, null);
+        TwilioVideoManager.getInstance().removeActionObserver(this);
+    }
+
+    @Override
+    public void onDisconnect() {
+        activity.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        });
+    }
+
+    @Override
+    public void onQualityProfileChanged(final QualityProfile qualityProfile) {
+        activity.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                if (closed) { return; }
+                captureQualityController.setQualityProfile(qualityProfile);
+                if (room != null && room.getLocalParticipant() != null) {
+                    room.getLocalParticipant().setEncodingParameters(CaptureQualityController.toEncodingParameters(qualityProfile));
+                }
+            }
+        });
+    }
+
+    private void createAudioAndVideoTracks() {
+        PreparedLocalMedia prepared = PreparedLocalMedia.take();
+        if (prepared != null) {
+            localAudioTrack = prepared.getLocalAudioTrack();
+            cameraCapturer = prepared.getCameraCapturer();
+            localVideoTrack = prepared.getLocalVideoTrack();
+            captureQualityController.onTrackCreatedWith(prepared.getCaptureConstraints());
+        } else {
+            localAudioTrack = LocalAudioTrack.create(activity, true, TwilioVideoActivity.LOCAL_AUDIO_TRACK_NAME);
+            cameraCapturer = new CameraCapturerCompat(activity, TwilioVideoActivity.getAvailableCameraSource(activity));
+            localVideoTrack = CaptureQualityController.createLocalVideoTrack(activity,
+                    true,
+                    cameraCapturer.getVideoCapturer(),
+                    captureQualityController.getCaptureConstraints());
+        }
+        markSetupMilestone(CallSetupTimings.Milestone.LOCAL_TRACKS_CREATED);
+        if (localVideoTrack != null) {
+            thumbnailVideoView.setMirror(cameraCapturer.getCameraSource() ==
+                    com.twilio.video.CameraCapturer.CameraSource.FRONT_CAMERA);
+            localVideoTrack.addRenderer(thumbnailVideoView);
+        }
+    }
+
+    private void connectToRoom() {
+        configureAudio(true);
+        ConnectOptions.Builder connectOptionsBuilder = new ConnectOptions.Builder(accessToken)
+                .roomName(roomId);
+        if (localAudioTrack != null) {
+            connectOptionsBuilder.audioTracks(Collections.singletonList(localAudioTrack));
+        }
+        if (localVideoTrack != null) {
+            connectOptionsBuilder.videoTracks(Collections.singletonList(localVideoTrack));
+        }
+        if (config.getQualityProfile() != null) {
+            connectOptionsBuilder.encodingParameters(CaptureQualityController.toEncodingParameters(config.getQualityProfile()));
+        }
+        connectOptionsBuilder.preferVideoCodecs(CodecPreferences.videoCodecs(activity, config));
+        List<AudioCodec> audioCodecs = CodecPreferences.audioCodecs(config);
+        if (audioCodecs != null) {
+            connectOptionsBuilder.preferAudioCodecs(audioCodecs);
+        }
+        markSetupMilestone(CallSetupTimings.Milestone.CONNECT_STARTED);
+        TwilioRoomEngine roomEngine = new TwilioRoomEngine(participantRegistry, roomListener());
+        if (config.isRecordRoomTrace()) {
+            roomCallbacks = new RoomTraceRecorder(roomSession, new File(activity.getFilesDir(), RoomTraceRecorder.FILE_NAME),
+                    config);
+        }
+        roomEngine.setListener(roomCallbacks);
+        room = Video.connect(activity, connectOptionsBuilder.build(), roomEngine);
+    }
+
+    private void configureAudio(boolean enable) {
+        if (enable) {
+            audioManager = (AudioManager) activity.getSystemService(Context.AUDIO_SERVICE);
+            previousAudioMode = audioManager.getMode();
+            audioManager.requestAudioFocus(null, AudioManager.STREAM_VOICE_CALL,
+                    AudioManager.AUDIOFOCUS_GAIN_TRANSIENT);
+            audioManager.setMode(AudioManager.MODE_IN_COMMUNICATION);
+            audioManager.setSpeakerphoneOn(true);
+            previousMicrophoneMute = audioManager.isMicrophoneMute();
+            audioManager.setMicrophoneMute(false);
+        } else if (audioManager != null) {
+            audioManager.setMode(previousAudioMode);
+            audioManager.abandonAudioFocus(null);
+            audioManager.setMicrophoneMute(previousMicrophoneMute);
+        }
+    }
+
+    private void startStatsSampling(Room room) {
+        long intervalMs = config.getStatsIntervalMs();
+        if (config.isAudioLevelSampling()) {
+            // Audio levels need a faster cadence than the STATS events
+            intervalMs = intervalMs > 0
+                    ? Math.min(intervalMs, AudioLevelMonitor.SAMPLE_INTERVAL_MS)
+                    : AudioLevelMonitor.SAMPLE_INTERVAL_MS;
+            statsSampler.addReportsListener(audioLevelMonitor);
+        }
+        boolean sampling = intervalMs > 0;
+        if (config.isSimulcast()) {
+            // Fed by the sampler when it runs, so the room is only polled once
+            publishingLayersReporter.start(room, !sampling);
+            if (sampling) {
+                statsSampler.addReportsListener(publishingLayersReporter);
+            }
+        }
+        if (sampling) {
+            statsSampler.start(room, intervalMs, config.getStatsIntervalMs());
+        }
+    }
+
+    private Room.Listener roomListener() {
+        return new Room.Listener() {
+            @Override
+            public void onConnected(Room room) {
+                markSetupMilestone(CallSetupTimings.Milestone.ROOM_CONNECTED);
+                publishEvent(CallEvent.CONNECTED, null);
+                // A prepared track at another tier is replaced even if nobody joins or leaves
+                captureQualityController.onParticipantCountChanged(room.getRemoteParticipants().size());
+                startStatsSampling(room);
+            }
+
+            @Override
+            public void onConnectFailure(Room room, TwilioException e) {
+                publishEvent(CallEvent.CONNECT_FAILURE, dumpCallLog(null));
+                close();
+            }
+
+            @Override
+            public void onReconnecting(Room room, TwilioException twilioException) {
+                publishEvent(CallEvent.RECONNECTING, null);
+            }
+
+            @Override
+            public void onReconnected(Room room) {
+                publishEvent(CallEvent.RECONNECTED, null);
+            }
+
+            @Override
+            public void onDisconnected(Room room, TwilioException e) {
+                TwilioVideoOverlay.this.room = null;
+                publishingLayersReporter.stop();
+                statsSampler.stop();
+                audioLevelMonitor.reset();
+                if (!closed && e != null) {
+                    JSONObject data = new JSONObject();
+                    try {
+                        data.put("code", String.valueOf(e.getCode()));
+                        data.put("description", e.getExplanation());
+                    } catch (JSONException e1) {
+                        Log.e(TwilioVideo.TAG, "onDisconnected. Error sending error data");
+                    }
+                    publishEvent(CallEvent.DISCONNECTED_WITH_ERROR, dumpCallLog(data));
+                    close();
+                } else {
+                    publishEvent(CallEvent.DISCONNECTED, null);
+                }
+            }
+
+            @Override
+            public void onParticipantConnected(Room room, RemoteParticipant participant) {
+            }
+
+            @Override
+            public void onParticipantDisconnected(Room room, RemoteParticipant participant) {
+            }
+
+            @Override
+            public void onRecordingStarted(Room room) {
+            }
+
+            @Override
+            public void onRecordingStopped(Room room) {
+            }
+        };
+    }
+
+    private CallRoomSession.Host roomSessionHost() {
+        return new CallRoomSession.Host() {
+            @Override
+            public void publishEvent(CallEvent event, JSONObject data) {
+                TwilioVideoOverlay.this.publishEvent(event, data);
+            }
+
+            @Override
+            public void onParticipantCountChanged(int participantCount) {
+                captureQualityController.onParticipantCountChanged(participantCount);
+            }
+
+            @Override
+            public void onVideoTrackEnabledChanged(String trackSid, boolean enabled) {
+                layoutReconciler.onTrackEnabledChanged(trackSid, enabled);
+            }
+
+            @Override
+            public void onAudioPlaybackChanged(String trackSid, boolean enabled) {
+                RemoteAudioTrack track = participantRegistry.getAudioTrack(trackSid);
+                if (track != null) {
+                    track.enablePlayback(enabled);
+                }
+            }
+        };
+    }
+
+    /*
+     * Writes the in-memory call log, if enabled, and adds its path to the failure event data
+     */
+    private JSONObject dumpCallLog(JSONObject data) {
+        File logFile = CallLog.dump(activity.getFilesDir());
+        if (logFile == null) { return data; }
+        if (data == null) { data = new JSONObject(); }
+        try {
+            data.put("logFile", logFile.getAbsolutePath());
+        } catch (JSONException e) {
+            Log.e(TwilioVideo.TAG, "Error adding the call log to the event data");
+        }
+        return data;
+    }
+
+    private void markSetupMilestone(CallSetupTimings.Milestone milestone) {
+        TwilioVideoManager.getInstance().getCallSetupTimings().mark(milestone);
+    }
+
+    private void publishEvent(CallEvent event, JSONObject data) {
+        TwilioVideoManager.getInstance().publishEvent(event, data);
+    }
+}
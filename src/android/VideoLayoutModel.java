@@ -0,0 +1,185 @@
+package org.apache.cordova.twiliovideo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Decides which remote video track goes on the primary view and which ones get a side tile,
+ * without touching any view. Every decision is reported as a minimal sequence of Operations,
+ * which VideoLayoutReconciler applies to the renderers.
+ *
+ * The primary view shows a screen track when there is one. Otherwise it keeps the track it is
+ * already showing, and when that track goes away the most recently subscribed track is promoted
+ * from its side tile. Every other track gets its own side tile. Paused tracks keep their side tile
+ * without rendering, they are only rendered while they are on the primary view.
+ */
+public class VideoLayoutModel {
+
+    public interface Operations {
+        void attachPrimary(String trackSid);
+        void detachPrimary(String trackSid);
+        void attachSide(String trackSid);
+        void detachSide(String trackSid);
+        // Shows the side track on the primary view and the primary track on its tile
+        void swapPrimary(String sideTrackSid, String primaryTrackSid);
+        // Stops or resumes rendering a side track, keeping its tile
+        void setSideRendering(String trackSid, boolean rendering);
+    }
+
+    // Track SID to whether it is a screen track, in subscription order
+    private final Map<String, Boolean> tracks = new LinkedHashMap<>();
+    private final Set<String> sideTracks = new LinkedHashSet<>();
+    private final Set<String> pausedTracks = new HashSet<>();
+    private String primaryTrackSid;
+
+    public void onTrackSubscribed(String trackSid, boolean screen, Operations operations) {
+        if (tracks.containsKey(trackSid)) { return; }
+        tracks.put(trackSid, screen);
+
+        if (primaryTrackSid == null) {
+            attachPrimary(trackSid, operations);
+        } else if (screen && !tracks.get(primaryTrackSid)) {
+            String demotedSid = primaryTrackSid;
+            detachPrimary(operations);
+            attachSide(demotedSid, operations);
+            attachPrimary(trackSid, operations);
+        } else {
+            attachSide(trackSid, operations);
+        }
+    }
+
+    public void onTrackUnsubscribed(String trackSid, Operations operations) {
+        if (!tracks.containsKey(trackSid)) { return; }
+
+        if (trackSid.equals(primaryTrackSid)) {
+            detachPrimary(operations);
+            tracks.remove(trackSid);
+            String promotedSid = findPrimaryCandidate();
+            if (promotedSid != null) {
+                detachSide(promotedSid, operations);
+                attachPrimary(promotedSid, operations);
+            }
+        } else {
+            detachSide(trackSid, operations);
+            tracks.remove(trackSid);
+        }
+        pausedTracks.remove(trackSid);
+    }
+
+    /*
+     * Can be called before the track is subscribed so that its tile is never rendered
+     */
+    public void setPaused(String trackSid, boolean paused, Operations operations) {
+        boolean changed = paused ? pausedTracks.add(trackSid) : pausedTracks.remove(trackSid);
+        if (changed && sideTracks.contains(trackSid)) {
+            operations.setSideRendering(trackSid, !paused);
+        }
+    }
+
+    /*
+     * Moves a side track to the primary view with a single swap, unless the primary view shows a
+     * screen track. Returns whether the layout changed.
+     */
+    public boolean promote(String trackSid, Operations operations) {
+        if (primaryTrackSid == null || !sideTracks.contains(trackSid) || tracks.get(primaryTrackSid)) {
+            return false;
+        }
+        String demotedSid = primaryTrackSid;
+        sideTracks.remove(trackSid);
+        sideTracks.add(demotedSid);
+        primaryTrackSid = trackSid;
+        operations.swapPrimary(trackSid, demotedSid);
+        if (pausedTracks.contains(demotedSid)) {
+            operations.setSideRendering(demotedSid, false);
+        }
+        return true;
+    }
+
+    /*
+     * Detaches every track
+     */
+    public void clear(Operations operations) {
+        if (primaryTrackSid != null) {
+            detachPrimary(operations);
+        }
+        for (String trackSid : new ArrayList<>(sideTracks)) {
+            detachSide(trackSid, operations);
+        }
+        tracks.clear();
+        pausedTracks.clear();
+    }
+
+    public String getPrimaryTrackSid() {
+        return primaryTrackSid;
+    }
+
+    public boolean isScreenTrack(String trackSid) {
+        Boolean screen = tracks.get(trackSid);
+        return screen != null && screen;
+    }
+
+    public boolean isPaused(String trackSid) {
+        return pausedTracks.contains(trackSid);
+    }
+
+    public boolean isSideTrack(String trackSid) {
+        return sideTracks.contains(trackSid);
+    }
+
+    public int getTrackCount() {
+        return tracks.size();
+    }
+
+    /*
+     * Track SIDs in subscription order
+     */
+    public List<String> getTrackSids() {
+        return new ArrayList<>(tracks.keySet());
+    }
+
+    private void attachPrimary(String trackSid, Operations operations) {
+        primaryTrackSid = trackSid;
+        operations.attachPrimary(trackSid);
+    }
+
+    private void detachPrimary(Operations operations) {
+        String trackSid = primaryTrackSid;
+        primaryTrackSid = null;
+        operations.detachPrimary(trackSid);
+    }
+
+    private void attachSide(String trackSid, Operations operations) {
+        sideTracks.add(trackSid);
+        operations.attachSide(trackSid);
+        if (pausedTracks.contains(trackSid)) {
+            operations.setSideRendering(trackSid, false);
+        }
+    }
+
+    private void detachSide(String trackSid, Operations operations) {
+        if (sideTracks.remove(trackSid)) {
+            operations.detachSide(trackSid);
+        }
+    }
+
+    /*
+     * Only walks the tracks when the primary track leaves, never on side tile changes.
+     */
+    private String findPrimaryCandidate() {
+        String lastSid = null;
+        String lastScreenSid = null;
+        for (Map.Entry<String, Boolean> entry : tracks.entrySet()) {
+            if (!sideTracks.contains(entry.getKey())) { continue; }
+            lastSid = entry.getKey();
+            if (entry.getValue()) {
+                lastScreenSid = entry.getKey();
+            }
+        }
+        return lastScreenSid != null ? lastScreenSid : lastSid;
+    }
+}
@@ -0,0 +1,162 @@
+package org.apache.cordova.twiliovideo;
+
+import android.graphics.Color;
+import android.view.View;
+
+import com.twilio.video.VideoRenderer;
+import com.twilio.video.VideoTrack;
+import com.twilio.video.VideoView;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Applies the decisions of a VideoLayoutModel to the views: only the renderer and visibility
+ * changes required by each track event are made, instead of detaching every renderer and
+ * rebuilding the whole layout. Tracks are looked up in the registry, so attach operations must
+ * come once the track is registered and detach operations before it is removed.
+ *
+ * A paused tile has no renderer and shows a plain avatar background instead of the video. Tiles
+ * are rendered through a ThrottledVideoRenderer when a thumbnail frame rate is set.
+ */
+public class VideoLayoutReconciler implements VideoLayoutModel.Operations {
+
+    private static final int AVATAR_COLOR = Color.DKGRAY;
+
+    public interface TileProvider {
+        VideoView acquireTile();
+        void releaseTile(VideoView tile);
+    }
+
+    private final VideoView primaryView;
+    private final TileProvider tileProvider;
+    private final ParticipantRegistry registry;
+    private final int thumbnailMaxFps;
+
+    private final Map<String, VideoView> sideTiles = new HashMap<>();
+    private final Set<String> pausedTiles = new HashSet<>();
+    // Throttling renderer of each tile in use, dropped when the tile goes back to the pool
+    private final Map<VideoView, VideoRenderer> tileRenderers = new HashMap<>();
+    private String primaryTrackSid;
+
+    /*
+     * thumbnailMaxFps of 0 renders every frame on the tiles
+     */
+    public VideoLayoutReconciler(VideoView primaryView, TileProvider tileProvider, ParticipantRegistry registry,
+                                 int thumbnailMaxFps) {
+        this.primaryView = primaryView;
+        this.tileProvider = tileProvider;
+        this.registry = registry;
+        this.thumbnailMaxFps = thumbnailMaxFps;
+    }
+
+    @Override
+    public void attachPrimary(String trackSid) {
+        VideoTrack track = registry.getVideoTrack(trackSid);
+        if (track == null) { return; }
+        primaryTrackSid = trackSid;
+        primaryView.setMirror(false);
+        track.addRenderer(primaryView);
+        primaryView.setVisibility(View.VISIBLE);
+        applyEnabledBackground(primaryView, track.isEnabled());
+    }
+
+    @Override
+    public void detachPrimary(String trackSid) {
+        if (!trackSid.equals(primaryTrackSid)) { return; }
+        primaryTrackSid = null;
+        VideoTrack track = registry.getVideoTrack(trackSid);
+        if (track != null) {
+            track.removeRenderer(primaryView);
+        }
+        primaryView.setBackgroundColor(Color.BLACK);
+    }
+
+    @Override
+    public void attachSide(String trackSid) {
+        VideoTrack track = registry.getVideoTrack(trackSid);
+        if (track == null) { return; }
+        VideoView tile = tileProvider.acquireTile();
+        sideTiles.put(trackSid, tile);
+        track.addRenderer(tileRenderer(tile));
+        tile.setVisibility(View.VISIBLE);
+        applyEnabledBackground(tile, track.isEnabled());
+    }
+
+    @Override
+    public void detachSide(String trackSid) {
+        VideoView tile = sideTiles.remove(trackSid);
+        if (tile == null) { return; }
+        boolean paused = pausedTiles.remove(trackSid);
+        VideoTrack track = registry.getVideoTrack(trackSid);
+        if (track != null && !paused) {
+            track.removeRenderer(tileRenderer(tile));
+        }
+        tileRenderers.remove(tile);
+        tileProvider.releaseTile(tile);
+    }
+
+    @Override
+    public void swapPrimary(String sideTrackSid, String primaryTrackSid) {
+        VideoTrack promoted = registry.getVideoTrack(sideTrackSid);
+        VideoTrack demoted = registry.getVideoTrack(primaryTrackSid);
+        VideoView tile = sideTiles.get(sideTrackSid);
+        if (promoted == null || demoted == null || tile == null) { return; }
+        sideTiles.remove(sideTrackSid);
+        boolean paused = pausedTiles.remove(sideTrackSid);
+        // The tile stays where it is in the container, only the renderers change places
+        if (!paused) {
+            promoted.removeRenderer(tileRenderer(tile));
+        }
+        demoted.removeRenderer(primaryView);
+        promoted.addRenderer(primaryView);
+        demoted.addRenderer(tileRenderer(tile));
+        sideTiles.put(primaryTrackSid, tile);
+        this.primaryTrackSid = sideTrackSid;
+        applyEnabledBackground(primaryView, promoted.isEnabled());
+        applyEnabledBackground(tile, demoted.isEnabled());
+    }
+
+    @Override
+    public void setSideRendering(String trackSid, boolean rendering) {
+        VideoView tile = sideTiles.get(trackSid);
+        VideoTrack track = registry.getVideoTrack(trackSid);
+        if (tile == null || track == null) { return; }
+        if (rendering) {
+            if (!pausedTiles.remove(trackSid)) { return; }
+            track.addRenderer(tileRenderer(tile));
+            applyEnabledBackground(tile, track.isEnabled());
+        } else {
+            if (!pausedTiles.add(trackSid)) { return; }
+            track.removeRenderer(tileRenderer(tile));
+            tile.setBackgroundColor(AVATAR_COLOR);
+        }
+    }
+
+    public void onTrackEnabledChanged(String trackSid, boolean enabled) {
+        if (trackSid.equals(primaryTrackSid)) {
+            applyEnabledBackground(primaryView, enabled);
+            return;
+        }
+        VideoView tile = sideTiles.get(trackSid);
+        if (tile != null && !pausedTiles.contains(trackSid)) {
+            applyEnabledBackground(tile, enabled);
+        }
+    }
+
+    private VideoRenderer tileRenderer(VideoView tile) {
+        if (thumbnailMaxFps <= 0) { return tile; }
+        VideoRenderer renderer = tileRenderers.get(tile);
+        if (renderer == null) {
+            renderer = new ThrottledVideoRenderer(tile, thumbnailMaxFps);
+            tileRenderers.put(tile, renderer);
+        }
+        return renderer;
+    }
+
+    private static void applyEnabledBackground(VideoView view, boolean enabled) {
+        view.setBackgroundColor(enabled ? Color.TRANSPARENT : Color.BLACK);
+    }
+}
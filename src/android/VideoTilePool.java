@@ -0,0 +1,113 @@
+package org.apache.cordova.twiliovideo;
+
+import android.content.Context;
+import android.util.DisplayMetrics;
+import android.view.Gravity;
+import android.widget.FrameLayout;
+
+import com.twilio.video.VideoView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Pool of side VideoViews. Each tile owns a fixed slot in the right hand column of the video
+ * container, so a released tile is handed out again on the next join instead of building a new
+ * view and renderer. Released tiles stay visible but are moved past the edge of the display: a
+ * SurfaceView that is not visible destroys its surface, and reusing it would then pay for the
+ * surface creation and EGL setup again. Parked tiles keep their surface buffers, so idle tiles
+ * can be dropped under memory pressure and will be recreated lazily in the same slot.
+ */
+public class VideoTilePool implements VideoLayoutReconciler.TileProvider {
+
+    private static final int TILE_SIZE_DP = 96;
+    private static final int TILE_MARGIN_DP = 16;
+
+    private final Context context;
+    private final FrameLayout container;
+    // Indexed by slot. A null entry is a slot whose tile was trimmed or never built
+    private final List<VideoView> tiles = new ArrayList<>();
+    private final List<Boolean> inUse = new ArrayList<>();
+
+    public VideoTilePool(Context context, FrameLayout container, int preallocatedTiles) {
+        this.context = context;
+        this.container = container;
+        for (int slot = 0; slot < preallocatedTiles; slot++) {
+            tiles.add(createTile(slot));
+            inUse.add(false);
+        }
+    }
+
+    @Override
+    public VideoView acquireTile() {
+        int slot = inUse.indexOf(false);
+        if (slot < 0) {
+            slot = tiles.size();
+            tiles.add(null);
+            inUse.add(false);
+        }
+        VideoView tile = tiles.get(slot);
+        if (tile == null) {
+            tile = createTile(slot);
+            tiles.set(slot, tile);
+        }
+        inUse.set(slot, true);
+        tile.setTranslationX(0);
+        return tile;
+    }
+
+    @Override
+    public void releaseTile(VideoView tile) {
+        int slot = tiles.indexOf(tile);
+        if (slot < 0) { return; }
+        park(tile);
+        inUse.set(slot, false);
+    }
+
+    /*
+     * Removes every tile that is not currently rendering a track
+     */
+    public void trimIdle() {
+        for (int slot = 0; slot < tiles.size(); slot++) {
+            VideoView tile = tiles.get(slot);
+            if (tile != null && !inUse.get(slot)) {
+                container.removeView(tile);
+                tiles.set(slot, null);
+            }
+        }
+    }
+
+    public void release() {
+        for (VideoView tile : tiles) {
+            if (tile != null) {
+                container.removeView(tile);
+            }
+        }
+        tiles.clear();
+        inUse.clear();
+    }
+
+    private VideoView createTile(int slot) {
+        int size = (int) TwilioVideoActivity.convertDpToPixel(TILE_SIZE_DP, context);
+        int margin = (int) TwilioVideoActivity.convertDpToPixel(TILE_MARGIN_DP, context);
+
+        // The first slot sits right below the local thumbnail
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(size, size, Gravity.TOP | Gravity.END);
+        params.setMargins(margin, margin + (slot + 1) * (size + margin), margin, margin);
+
+        VideoView tile = new VideoView(context);
+        tile.setLayoutParams(params);
+        park(tile);
+        tile.setListener(TwilioVideoManager.getInstance().getCallSetupTimings().getFirstRemoteFrameListener());
+        container.addView(tile);
+        return tile;
+    }
+
+    /*
+     * Past the display edge in either orientation, whatever the position of the container
+     */
+    private void park(VideoView tile) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        tile.setTranslationX(Math.max(metrics.widthPixels, metrics.heightPixels));
+    }
+}
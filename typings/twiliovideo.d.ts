@@ -6,7 +6,7 @@ declare module TwilioVideo {
      * our own controls from the application that uses the plugin.
      * @param token 
      * @param roomName 
-     * @param onEvent - (Optional) It will be fired any time that a call event is received
+     * @param onEvent - (Optional) It will be fired any time that a call event is received, with (event, data, seq)
      * @param {Object} config - (Optional) Call configuraiton
      * @param config.primaryColor - Hex primary color that the app will use
      * @param config.secondaryColor - Hex secondary color that the app will use
@@ -15,9 +15,80 @@ declare module TwilioVideo {
      * @param config.i18nAccept - Accept translation
      * @param config.handleErrorInApp - (Default = false) Flag to indicate the application will manage any error in the app by events emitted by the plugin
      * @param config.hangUpInApp - (Default = false) Flag to indicate the application should hang up the call by calling 'closeRoom'
+     * @param config.sideViewPoolSize - (Default = 2) (Android only) Number of participant side views built up front and reused across joins and leaves
+     * @param config.eventBatchMode - (Default = 'none') (Android only) 'none', 'window' or 'frame'. Groups events crossing the native bridge; 'onEvent' is still called once per event, in order
+     * @param config.eventBatchWindowMs - (Default = 50) (Android only) Time events are held when 'eventBatchMode' is 'window'. Terminal events are always delivered immediately
+     * @param config.eventQueueCapacity - (Default = 256) (Android only) Maximum number of events waiting to be delivered
+     * @param config.eventOverflowPolicy - (Default = 'drop_oldest') (Android only) 'drop_oldest' or 'collapse'. What to give up when the event queue is full. 'collapse' drops the oldest queued event of the same type. Participant, track and terminal events are never dropped
+     * @param config.foregroundService - (Default = false) (Android only) Run a foreground service with an ongoing call notification while the call screen is in the background, so backgrounding the app only pauses the local video instead of releasing it. The room still belongs to the call screen and the call ends when it is destroyed
+     * @param config.i18nOngoingCall - (Android only) Text of the notification shown while 'foregroundService' is enabled
+     * @param config.embedded - (Default = false) (Android only) Show the video as a native view over the WebView instead of opening a separate screen. Permissions must already be granted, otherwise only the PERMISSIONS_REQUIRED event is sent. The app provides its own call controls
+     * @param config.videoFrame - (Android only) Initial { x, y, width, height } of the embedded video, in CSS pixels relative to the WebView
+     * @param config.captureQualityLadder - (Android only) Local capture quality by room size, as [{ minParticipants, width, height, fps }]. Each tier applies from 'minParticipants' remote participants up to the next tier. By default the SDK capture defaults are used
+     * @param config.qualityProfile - (Android only) 'low_bandwidth', 'balanced' or 'hd'. Caps the encoder bitrates and the capture resolution and frame rate. By default the SDK defaults are used
+     * @param config.preferredVideoCodecs - (Android only) Video codecs in preference order, e.g. ['H264', 'VP8']. 'H264', 'VP8' and 'VP9' are accepted. By default H.264 is preferred only on devices with a hardware H.264 codec and no hardware VP8 encoder
+     * @param config.preferredAudioCodecs - (Android only) Audio codecs in preference order: 'opus', 'isac', 'PCMA', 'PCMU' or 'G722'. By default the SDK order is used
+     * @param config.simulcast - (Default = false) (Android only) Publish VP8 with simulcast so the server can forward lower layers to weak subscribers. A PUBLISHING_LAYERS event reports the layers being sent whenever they change
+     * @param config.simulcastMaxLayers - (Default = 3) (Android only) 1 to 3. Lower values cap the capture resolution so the encoder produces fewer layers
+     * @param config.statsIntervalMs - (Default = 0) (Android only) Interval at which media stats are sampled and sent as STATS events with one { kind, trackSid, codec, bitrate, packetsLost, jitter, roundTripTime, frameRate, width, height } entry per encoding. 0 disables sampling
+     * @param config.logLevel - (Default = 'warn') (Android only) 'verbose', 'debug', 'info', 'warn', 'error' or 'none'. Minimum level of the plugin call logs written to logcat
+     * @param config.logBufferSize - (Default = 0) (Android only) Number of recent log entries, down to debug level, kept in memory. On CONNECT_FAILURE and DISCONNECTED_WITH_ERROR they are written to a file whose path is sent as 'logFile' in the event data
+     * @param config.recordRoomTrace - (Default = false) (Android only) Record the participant and track callbacks and the detected speech with their timing, after the options that affect how they are handled. The trace is written to 'twilio-video-room.trace' in the app files directory when the room disconnects, for offline replay
+     * @param config.dominantSpeaker - (Default = false) (Android only) Detect the loudest remote speaker from sampled audio levels, send a DOMINANT_SPEAKER_CHANGED event with { participantSid, participantIdentity, trackSid } and move their video to the primary view. A screen share keeps the primary view
+     * @param config.dominantSpeakerHoldMs - (Default = 2000) (Android only) Minimum time a dominant speaker is kept before another one can take over
+     * @param config.lastN - (Default = 0) (Android only) Number of participants whose video is rendered. The most recently heard participants are kept, everyone else gets a placeholder tile without rendering until they speak. 0 renders everyone
+     * @param config.audioPlaybackLimit - (Default = 0) (Android only) Number of remote audio tracks played back at once. The most recently heard tracks play, the others are muted until they speak. 0 plays every track
+     * @param config.audioPlaybackHoldMs - (Default = 5000) (Android only) How long a track that stopped speaking keeps its playback slot before a newly heard track can take it
+     * @param config.thumbnailMaxFps - (Default = 15) (Android only) Maximum frame rate rendered on the remote side tiles. The primary view always renders every frame. 0 renders every frame on the tiles too
      */
     openRoom(token: string, roomName: string, onEvent?: Function, config?: any): void;
 
+    /**
+     * (Android only) Opens the camera and microphone ahead of 'openRoom', e.g. while a lobby
+     * screen is shown, so joining the room is faster. The next 'openRoom' adopts the prepared
+     * media. Fails if the required permissions are not granted.
+     * @param {Object} config - (Optional) Preparation configuration
+     * @param config.prepareIdleTimeoutMs - (Default = 60000) Time after which unused prepared media is released
+     * @param config.captureQualityLadder - Same as in 'openRoom'. Pass the same capture options so the camera starts at the capture quality of the call and is not reopened after connecting
+     * @param config.qualityProfile - Same as in 'openRoom'
+     * @param config.simulcast - Same as in 'openRoom'
+     */
+    prepareRoom(config?: any): Promise<void>;
+
+    /**
+     * (Android only) Listens to call events without opening a room, e.g. after a WebView reload.
+     * Events published after 'sinceSeq' that are still kept by the plugin (the last 128) are
+     * replayed first, in order, followed by live events.
+     * @param onEvent - Fired with (event, data, seq) for every event
+     * @param sinceSeq - (Default = 0) Sequence number of the last event already handled
+     */
+    subscribeEvents(onEvent: Function, sinceSeq?: number): void;
+
+    /**
+     * (Android only) Milliseconds from openRoom to each call setup milestone reached so far:
+     * openRoom, callUiCreated, permissionsGranted, localTracksCreated, firstCameraFrame,
+     * connectStarted, roomConnected, firstRemoteTrackSubscribed and firstRemoteFrame.
+     * The same object is sent as a CALL_TIMINGS event once the first remote frame is rendered.
+     */
+    getCallTimings(): Promise<any>;
+
+    /**
+     * (Android only) Latest media stats sample, see 'config.statsIntervalMs'. Fails if sampling is not running
+     */
+    getStats(): Promise<any>;
+
+    /**
+     * (Android only) Switches the running call to another quality profile
+     * @param profile - 'low_bandwidth', 'balanced' or 'hd'
+     */
+    setQualityProfile(profile: string): Promise<void>;
+
+    /**
+     * (Android only) Moves or resizes the embedded video opened with 'config.embedded'.
+     * Values are CSS pixels relative to the top left corner of the WebView, as returned by getBoundingClientRect.
+     */
+    setVideoFrame(x: number, y: number, width: number, height: number): Promise<void>;
+
     /**
      * It closes the videocall room if it is running
      */
@@ -2,16 +2,81 @@ var exec = require('cordova/exec');
 
 var TwilioVideo = function() {};
 
+function dispatchEvents(e, eventCallback) {
+    // Events arrive one by one or, when batching is enabled, as an ordered array
+    var events = Array.isArray(e) ? e : [e];
+    for (var i = 0; i < events.length; i++) {
+        console.log("Twilio video event fired: " + events[i].event);
+        if (eventCallback) {
+            eventCallback(events[i].event, events[i].data, events[i].seq);
+        }
+    }
+}
+
 TwilioVideo.openRoom = function(token, room, eventCallback, config) {
     config = config != null ? config : null;
     exec(function(e) {
-        console.log("Twilio video event fired: " + e);
-        if (eventCallback) {
-            eventCallback(e.event, e.data);
-        }
+        dispatchEvents(e, eventCallback);
     }, null, 'TwilioVideoPlugin', 'openRoom', [token, room, config]);
 };
 
+TwilioVideo.subscribeEvents = function(eventCallback, sinceSeq) {
+    sinceSeq = sinceSeq != null ? sinceSeq : 0;
+    exec(function(e) {
+        dispatchEvents(e, eventCallback);
+    }, null, 'TwilioVideoPlugin', 'subscribeEvents', [sinceSeq]);
+};
+
+TwilioVideo.prepareRoom = function(config) {
+    config = config != null ? config : null;
+    return new Promise(function(resolve, reject) {
+        exec(function() {
+            resolve();
+        }, function(error) {
+            reject(error);
+        }, "TwilioVideoPlugin", "prepareRoom", [config]);
+    });
+};
+
+TwilioVideo.getCallTimings = function() {
+    return new Promise(function(resolve, reject) {
+        exec(function(timings) {
+            resolve(timings);
+        }, function(error) {
+            reject(error);
+        }, "TwilioVideoPlugin", "getCallTimings", []);
+    });
+};
+
+TwilioVideo.getStats = function() {
+    return new Promise(function(resolve, reject) {
+        exec(function(stats) {
+            resolve(stats);
+        }, function(error) {
+            reject(error);
+        }, "TwilioVideoPlugin", "getStats", []);
+    });
+};
+
+TwilioVideo.setQualityProfile = function(profile) {
+    return new Promise(function(resolve, reject) {
+        exec(function() {
+            resolve();
+        }, function(error) {
+            reject(error);
+        }, "TwilioVideoPlugin", "setQualityProfile", [profile]);
+    });
+};
+
+TwilioVideo.setVideoFrame = function(x, y, width, height) {
+    return new Promise(function(resolve, reject) {
+        exec(function() {
+            resolve();
+        }, function(error) {
+            reject(error);
+        }, "TwilioVideoPlugin", "setVideoFrame", [x, y, width, height]);
+    });
+};
 
 TwilioVideo.closeRoom = function() {
     return new Promise(function(resolve, reject) {